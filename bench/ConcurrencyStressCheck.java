@@ -0,0 +1,214 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The stress check of the shared code instances, which exits with a nonzero status if a result is wrong.
+ *
+ * Several threads encode and decode with the same instances at the same time, and compare every result
+ * with the result of the main thread: the coded text, the plaintext of the blocks with a single error,
+ * and the input, which must not be changed by any method except the in-place ones.
+ * The in-place decoding of a range at a random offset must also write the same plaintext as the copying decoding,
+ * and leave the bits around the range as they were.
+ *
+ * Compile and run from the root of the project:
+ *
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out ConcurrencyStressCheck [threads] [seconds]
+ *
+ * @author 160021429
+ */
+public final class ConcurrencyStressCheck {
+	private static final int PAYLOAD_BITS = 4096;
+	private static final int PAYLOADS = 8;
+
+	private final IECC code;
+	private final BitSet[] plaintexts = new BitSet[PAYLOADS];
+	private final int[] plainLengths = new int[PAYLOADS];
+	private final BitSet[] codetexts = new BitSet[PAYLOADS];
+	private final BitSet[] received = new BitSet[PAYLOADS]; // the coded text with a single error in every block
+	private final int[] codeLengths = new int[PAYLOADS];
+
+	/**
+	 * Prepares the payloads of a code and their results on the calling thread.
+	 * @param code the shared code
+	 * @param random the source of the payloads
+	 */
+	private ConcurrencyStressCheck(IECC code, Random random) {
+		this.code = code;
+
+		int length = code.getLength();
+		int dimension = code.getDimension();
+
+		for (int p = 0; p < PAYLOADS; p++) {
+			int numOfBlocks = Math.max(1, PAYLOAD_BITS / dimension) + p; // different lengths, some of odd sizes
+			int len = numOfBlocks * dimension;
+			BitSet plaintext = new BitSet(len);
+
+			for (int i = 0; i < len; i++) {
+				if (random.nextBoolean()) {
+					plaintext.set(i);
+				}
+			}
+
+			BitSet codetext = code.encode(plaintext, len);
+			BitSet errors = (BitSet) codetext.clone();
+
+			for (int b = 0; b < numOfBlocks; b++) {
+				errors.flip(b * length + random.nextInt(length));
+			}
+
+			this.plaintexts[p] = plaintext;
+			this.plainLengths[p] = len;
+			this.codetexts[p] = codetext;
+			this.received[p] = errors;
+			this.codeLengths[p] = numOfBlocks * length;
+		}
+	}
+
+	/**
+	 * Runs the check.
+	 * @param args the number of threads (8 by default) and the number of seconds (5 by default)
+	 * @throws InterruptedException if the main thread is interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int threads = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+		long millis = ((args.length > 1) ? Long.parseLong(args[1]) : 5L) * 1000L;
+		Random random = new Random(18);
+
+		IECC[] codes = {
+			new HammingCode(3), new HammingCode(6), new HammingCode(10),
+			new ReedMullerCode(5, 2), new ReedMullerCode(7, 1), new ReedMullerCode(8, 3), new ReedMullerCode(5, 2, true)
+		};
+		ConcurrencyStressCheck[] checks = new ConcurrencyStressCheck[codes.length];
+
+		for (int c = 0; c < codes.length; c++) {
+			checks[c] = new ConcurrencyStressCheck(codes[c], random);
+		}
+
+		AtomicInteger failures = new AtomicInteger();
+		AtomicInteger rounds = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		long deadline = System.currentTimeMillis() + millis;
+
+		for (int t = 0; t < threads; t++) {
+			long seed = random.nextLong();
+
+			workers[t] = new Thread(() -> {
+				Random local = new Random(seed);
+
+				try {
+					start.await();
+
+					while (System.currentTimeMillis() < deadline) {
+						ConcurrencyStressCheck check = checks[local.nextInt(checks.length)];
+						failures.addAndGet(check.round(local.nextInt(PAYLOADS), local));
+						rounds.incrementAndGet();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (RuntimeException | UncorrectableErrorException e) {
+					System.out.println(Thread.currentThread().getName() + ": " + e);
+					failures.incrementAndGet();
+				}
+			});
+			workers[t].start();
+		}
+
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		System.out.println(threads + " threads, " + rounds.get() + " rounds, " + failures.get() + " failures");
+		if (failures.get() > 0) {
+			System.out.println("FAILED");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Encodes and decodes a payload with every method, and compares the results with the expected results.
+	 * @param p the index of the payload
+	 * @param random the random source of the thread
+	 * @return the number of wrong results
+	 * @throws UncorrectableErrorException if a block with a single error is reported as uncorrectable
+	 */
+	private int round(int p, Random random) throws UncorrectableErrorException {
+		int failures = 0;
+		BitSet plaintext = this.plaintexts[p];
+		BitSet input = (BitSet) this.received[p].clone();
+		int plainLen = this.plainLengths[p];
+		int codeLen = this.codeLengths[p];
+
+		failures += expect(this.code.encode(plaintext, plainLen).equals(this.codetexts[p]), "encode(BitSet)");
+		failures += expect(this.code.decodeAlways(input, codeLen).equals(plaintext), "decodeAlways(BitSet)");
+		failures += expect(this.code.decodeIfUnique(input, codeLen).equals(plaintext), "decodeIfUnique(BitSet)");
+		failures += expect(this.code.decodeWithStatus(input, codeLen).getPlaintext().equals(plaintext),
+				"decodeWithStatus(BitSet)");
+		failures += expect(input.equals(this.received[p]), "the BitSet input was changed");
+
+		// the same coded text at a random offset of an array of random bits
+		long offset = random.nextInt(256);
+		long[] text = new long[BitUtil.numOfWords(offset + codeLen) + 2];
+		for (int i = 0; i < text.length; i++) {
+			text[i] = random.nextLong();
+		}
+		BitUtil.copyBits(this.received[p].toLongArray(), 0, text, offset, codeLen);
+
+		long[] before = text.clone();
+		long plainOffset = random.nextInt(256);
+		long[] copied = new long[BitUtil.numOfWords(plainOffset + plainLen) + 1];
+
+		long written = this.code.decodeAlways(text, offset, codeLen, copied, plainOffset);
+		failures += expect(written == plainLen && range(copied, plainOffset, plainLen).equals(plaintext),
+				"decodeAlways(long[])");
+		failures += expect(Arrays.equals(text, before), "the long[] input was changed");
+
+		long[] inPlace = text.clone();
+		written = this.code.decodeAlwaysInPlace(inPlace, offset, codeLen);
+		failures += expect(written == plainLen
+				&& range(inPlace, offset, plainLen).equals(range(copied, plainOffset, plainLen)), "decodeAlwaysInPlace");
+		failures += expect(range(inPlace, 0, offset).equals(range(before, 0, offset))
+				&& range(inPlace, offset + codeLen, 64).equals(range(before, offset + codeLen, 64)),
+				"decodeAlwaysInPlace wrote outside the range");
+
+		inPlace = text.clone();
+		this.code.decodeIfUniqueInPlace(inPlace, offset, codeLen);
+		failures += expect(range(inPlace, offset, plainLen).equals(plaintext), "decodeIfUniqueInPlace");
+
+		return failures;
+	}
+
+	/**
+	 * Reads a range of a packed vector into a bit set.
+	 * @param words the packed vector
+	 * @param offset the index of the first bit
+	 * @param len the number of bits
+	 * @return the bits
+	 */
+	private static BitSet range(long[] words, long offset, long len) {
+		long[] bits = new long[BitUtil.numOfWords(len)];
+		BitUtil.copyBits(words, offset, bits, 0, len);
+		return BitSet.valueOf(bits);
+	}
+
+	/**
+	 * Prints a failure if the result is wrong.
+	 * @param ok true if the result is right
+	 * @param name the name of the result
+	 * @return 0 if the result is right, otherwise 1
+	 */
+	private int expect(boolean ok, String name) {
+		if (ok) {
+			return 0;
+		}
+
+		System.out.println(this.code + ": " + name);
+		return 1;
+	}
+}
@@ -0,0 +1,264 @@
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * The check of LinearCode, which decodes every single error of a few codes and exits with a nonzero status
+ * if a block is not corrected.
+ *
+ * The codes are the hamming codes made from their parity check matrices, the (72,64) code of the ECC memories,
+ * whose double errors must be detected, and a (70,6) code with 64 parity checks, whose syndromes use the sign bit
+ * of a word, so that the single errors are looked up in the signed order of the sorted syndromes.
+ * The codes of length 64 or less are also compared with a brute force search for the closest codewords.
+ *
+ * Compile and run from the root of the project:
+ *
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out LinearCodeCheck
+ *
+ * @author 160021429
+ */
+public final class LinearCodeCheck {
+	private static final Random RANDOM = new Random(22);
+
+	private int failures;
+
+	/**
+	 * The private constructor, as the check is run from main.
+	 */
+	private LinearCodeCheck() {
+	}
+
+	/**
+	 * Runs the check.
+	 * @param args not used
+	 * @throws UncorrectableErrorException never, as the failures are counted
+	 */
+	public static void main(String[] args) throws UncorrectableErrorException {
+		LinearCodeCheck check = new LinearCodeCheck();
+
+		for (int r = 3; r <= 7; r++) {
+			LinearCode code = LinearCode.fromParityCheck(hammingCheckMatrix(r));
+
+			check.singleErrors(code);
+
+			if (r <= 4) {
+				check.closestCodewords(code);
+			}
+		}
+
+		LinearCode secded = LinearCode.fromParityCheck(oddWeightCheckMatrix(8, 72));
+		check.singleErrors(secded);
+		check.doubleErrors(secded);
+
+		check.singleErrors(LinearCode.fromParityCheck(fullWidthCheckMatrix(70)));
+		check.closestCodewords(LinearCode.fromGenerator(new int[][] {{1, 1, 1, 1, 1}}));
+
+		if (check.failures > 0) {
+			System.out.println("FAILED: " + check.failures);
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Makes the parity check matrix of the hamming code, whose column j is the binary number j + 1.
+	 * @param r the number of parity check bits
+	 * @return the matrix
+	 */
+	private static int[][] hammingCheckMatrix(int r) {
+		int length = (1 << r) - 1;
+		int[][] h = new int[r][length];
+
+		for (int j = 0; j < length; j++) {
+			for (int i = 0; i < r; i++) {
+				h[i][j] = (j + 1) >>> i & 1;
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Makes a parity check matrix whose columns are distinct numbers of odd weight, like the (72,64) code.
+	 * @param checks the number of rows
+	 * @param length the number of columns
+	 * @return the matrix
+	 */
+	private static int[][] oddWeightCheckMatrix(int checks, int length) {
+		int[][] h = new int[checks][length];
+		int column = 0;
+
+		for (int v = 1; column < length; v++) {
+			if (Integer.bitCount(v) % 2 == 1) {
+				for (int i = 0; i < checks; i++) {
+					h[i][column] = v >>> i & 1;
+				}
+				column++;
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Makes a parity check matrix with 64 rows: the identity, followed by random columns,
+	 * so that the syndromes of many single errors have the bit 63 set.
+	 * @param length the number of columns, more than 64
+	 * @return the matrix
+	 */
+	private static int[][] fullWidthCheckMatrix(int length) {
+		int checks = BitUtil.WORD_SIZE;
+		int[][] h = new int[checks][length];
+
+		for (int j = 0; j < length; j++) {
+			long column = (j < checks) ? 1L << j : RANDOM.nextLong() | 3L; // weight 2 or more, so not a unit column
+
+			for (int i = 0; i < checks; i++) {
+				h[i][j] = (int) (column >>> i & 1);
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Flips every single bit of random codewords, and checks that decodeIfUnique corrects it.
+	 * @param code the code, whose columns of H must be distinct and nonzero
+	 * @throws UncorrectableErrorException never, as the failures are counted
+	 */
+	private void singleErrors(LinearCode code) throws UncorrectableErrorException {
+		int length = code.getLength();
+		int dimension = code.getDimension();
+		int wrong = 0;
+
+		for (int t = 0; t < 20; t++) {
+			BitSet message = randomBits(dimension);
+			BitSet codeword = code.encode(message, dimension);
+
+			for (int j = 0; j < length; j++) {
+				BitSet received = (BitSet) codeword.clone();
+				received.flip(j);
+
+				try {
+					if (!code.decodeIfUnique(received, length).equals(message)) {
+						wrong++;
+					}
+				} catch (UncorrectableErrorException e) {
+					wrong++;
+				}
+			}
+		}
+
+		report(code + " single errors", wrong);
+	}
+
+	/**
+	 * Flips two bits of random codewords, and checks that the blocks are reported as uncorrectable.
+	 * @param code the code, whose minimum distance must be 4
+	 */
+	private void doubleErrors(LinearCode code) {
+		int length = code.getLength();
+		int dimension = code.getDimension();
+		int wrong = 0;
+
+		for (int t = 0; t < 2000; t++) {
+			BitSet received = code.encode(randomBits(dimension), dimension);
+			int first = RANDOM.nextInt(length);
+			int second = (first + 1 + RANDOM.nextInt(length - 1)) % length;
+
+			received.flip(first);
+			received.flip(second);
+
+			if (code.decodeWithStatus(received, length).getStatus(0) != DecodeResult.UNCORRECTABLE) {
+				wrong++;
+			}
+		}
+
+		report(code + " double errors", wrong);
+	}
+
+	/**
+	 * Compares decodeAlways and decodeIfUnique of random blocks with a brute force search of the codewords.
+	 * @param code the code, of length 64 or less and dimension 16 or less
+	 * @throws UncorrectableErrorException never, as the failures are counted
+	 */
+	private void closestCodewords(LinearCode code) throws UncorrectableErrorException {
+		int length = code.getLength();
+		int dimension = code.getDimension();
+		long[] codewords = new long[1 << dimension];
+		int wrong = 0;
+
+		for (int m = 0; m < codewords.length; m++) {
+			codewords[m] = firstWord(code.encode(BitSet.valueOf(new long[] {m}), dimension));
+		}
+
+		for (int t = 0; t < 1000; t++) {
+			long received = RANDOM.nextLong() & BitUtil.lowMask(length);
+			int best = Integer.MAX_VALUE;
+			int count = 0;
+
+			for (long codeword : codewords) {
+				int distance = Long.bitCount(received ^ codeword);
+
+				if (distance < best) {
+					best = distance;
+					count = 1;
+				} else if (distance == best) {
+					count++;
+				}
+			}
+
+			BitSet block = BitSet.valueOf(new long[] {received});
+			long decoded = firstWord(code.decodeAlways(block, length));
+			boolean unique = true;
+
+			try {
+				code.decodeIfUnique(block, length);
+			} catch (UncorrectableErrorException e) {
+				unique = false;
+			}
+
+			if (Long.bitCount(received ^ codewords[(int) decoded]) != best || unique != (count == 1)) {
+				wrong++;
+			}
+		}
+
+		report(code + " closest codewords", wrong);
+	}
+
+	/**
+	 * Prints the result of a part of the check, and counts it if it failed.
+	 * @param name the name of the part
+	 * @param wrong the number of wrong blocks
+	 */
+	private void report(String name, int wrong) {
+		System.out.println(name + ": " + (wrong == 0 ? "ok" : wrong + " wrong"));
+
+		if (wrong > 0) {
+			this.failures++;
+		}
+	}
+
+	/**
+	 * Makes random bits.
+	 * @param count the number of bits
+	 * @return the bits
+	 */
+	private static BitSet randomBits(int count) {
+		BitSet bits = new BitSet(count);
+
+		for (int i = 0; i < count; i++) {
+			if (RANDOM.nextBoolean()) {
+				bits.set(i);
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Returns the first word of a bit set.
+	 * @param bits the bit set
+	 * @return the bits 0 to 63
+	 */
+	private static long firstWord(BitSet bits) {
+		long[] words = bits.toLongArray();
+		return (words.length == 0) ? 0L : words[0];
+	}
+}
@@ -0,0 +1,142 @@
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * The check of the table-free Reed Muller decoder, which exits with a nonzero status if a block with
+ * more errors than the code corrects is decoded without being reported.
+ *
+ * The minimum distance 2^(k-r) of a Reed Muller code is even, so a block with t + 1 errors,
+ * where t = (2^(k-r) - 1) / 2, is at least t + 1 bits away from every codeword. Such a block has no closest codeword
+ * within t bits, and decodeIfUnique must throw, while the blocks with t errors are corrected.
+ * The codes are decoded with the majority-logic decoder, the Fast Hadamard Transform and the syndrome table,
+ * which must all agree.
+ *
+ * Compile and run from the root of the project:
+ *
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out ReedMullerDecoderCheck
+ *
+ * @author 160021429
+ */
+public final class ReedMullerDecoderCheck {
+	private static final Random RANDOM = new Random(3);
+	private static final int TRIALS = 500;
+
+	private int failures;
+
+	/**
+	 * The private constructor, as the check is run from main.
+	 */
+	private ReedMullerDecoderCheck() {
+	}
+
+	/**
+	 * Runs the check.
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		ReedMullerDecoderCheck check = new ReedMullerDecoderCheck();
+
+		check.errors(new ReedMullerCode(5, 2), 5, 2);
+		check.errors(new ReedMullerCode(5, 2, true), 5, 2);
+		check.errors(new ReedMullerCode(6, 2, true), 6, 2);
+		check.errors(new ReedMullerCode(7, 1), 7, 1);
+		check.errors(new ReedMullerCode(7, 3), 7, 3);
+		check.errors(new ReedMullerCode(8, 3), 8, 3);
+
+		if (check.failures > 0) {
+			System.out.println("FAILED: " + check.failures);
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Decodes random blocks with t and with t + 1 errors.
+	 * @param code the code
+	 * @param k the value k of the code
+	 * @param r the value r of the code
+	 */
+	private void errors(ReedMullerCode code, int k, int r) {
+		int t = ((1 << (k - r)) - 1) / 2;
+		int length = code.getLength();
+		int dimension = code.getDimension();
+		int wrong = 0;
+		int accepted = 0;
+
+		for (int trial = 0; trial < TRIALS; trial++) {
+			BitSet message = randomBits(dimension);
+			BitSet codeword = code.encode(message, dimension);
+
+			BitSet received = flip(codeword, length, t);
+			try {
+				if (!code.decodeIfUnique(received, length).equals(message)) {
+					wrong++;
+				}
+			} catch (UncorrectableErrorException e) {
+				wrong++;
+			}
+
+			received = flip(codeword, length, t + 1);
+			try {
+				code.decodeIfUnique(received, length);
+				accepted++;
+			} catch (UncorrectableErrorException e) {
+				// a block with t + 1 errors has no unique closest codeword within t bits
+			}
+			if (code.decodeWithStatus(received, length).getStatus(0) != DecodeResult.UNCORRECTABLE) {
+				accepted++;
+			}
+		}
+
+		report(code + " " + t + " errors", wrong);
+		report(code + " " + (t + 1) + " errors", accepted);
+	}
+
+	/**
+	 * Flips distinct random bits of a block.
+	 * @param codeword the block
+	 * @param length the length of the block
+	 * @param count the number of bits to flip
+	 * @return the block with the flipped bits
+	 */
+	private static BitSet flip(BitSet codeword, int length, int count) {
+		BitSet received = (BitSet) codeword.clone();
+		BitSet errors = new BitSet(length);
+
+		while (errors.cardinality() < count) {
+			errors.set(RANDOM.nextInt(length));
+		}
+		received.xor(errors);
+		return received;
+	}
+
+	/**
+	 * Prints the result of a part of the check, and counts it if it failed.
+	 * @param name the name of the part
+	 * @param wrong the number of wrong blocks
+	 */
+	private void report(String name, int wrong) {
+		System.out.println(name + ": " + (wrong == 0 ? "ok" : wrong + " wrong"));
+
+		if (wrong > 0) {
+			this.failures++;
+		}
+	}
+
+	/**
+	 * Makes random bits.
+	 * @param count the number of bits
+	 * @return the bits
+	 */
+	private static BitSet randomBits(int count) {
+		BitSet bits = new BitSet(count);
+
+		for (int i = 0; i < count; i++) {
+			if (RANDOM.nextBoolean()) {
+				bits.set(i);
+			}
+		}
+		return bits;
+	}
+}
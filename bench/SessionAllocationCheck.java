@@ -0,0 +1,191 @@
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * The check that a CodeSession does not allocate once it is warmed up, which exits with a nonzero status
+ * if a session call allocates any byte on the calling thread.
+ *
+ * The codes cover the paths of the decoders: the bit-sliced hamming codes and a hamming code of more than one word,
+ * and the Reed Muller codes that are decoded with the syndrome table, the Fast Hadamard Transform
+ * and the majority-logic decoder. Every code encodes, and decodes with decodeAlways and decodeIfUnique,
+ * a payload that has a single error in every block, through the long[] and the ByteBuffer methods of the session.
+ *
+ * Compile and run from the root of the project:
+ *
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out SessionAllocationCheck
+ *
+ * @author 160021429
+ */
+public final class SessionAllocationCheck {
+	private static final String[] CODES = {"hamming:3", "hamming:6", "hamming:10", "rm:5:2", "rm:7:1", "rm:8:3"};
+	private static final int PAYLOAD_BYTES = 2 << 10;
+	private static final int WARMUP_ROUNDS = 1000;
+	private static final int MEASURED_ROUNDS = 100;
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private static long sink; // consumes the results, so that the work is not eliminated
+
+	/**
+	 * The private constructor, as the check is run from main.
+	 */
+	private SessionAllocationCheck() {
+	}
+
+	/**
+	 * A session call, which is run many times.
+	 */
+	@FunctionalInterface
+	private interface Operation {
+		/**
+		 * Runs the call once.
+		 * @return a value that depends on the result of the call
+		 * @throws UncorrectableErrorException if the payload cannot be decoded uniquely, which fails the check
+		 */
+		long run() throws UncorrectableErrorException;
+	}
+
+	/**
+	 * Runs the check.
+	 * @param args the codes, as hamming:r or rm:k:r, or none for the default codes
+	 * @throws UncorrectableErrorException if a payload with a single error per block cannot be decoded
+	 */
+	public static void main(String[] args) throws UncorrectableErrorException {
+		THREADS.setThreadAllocatedMemoryEnabled(true);
+
+		int failures = 0;
+
+		for (String spec : (args.length > 0) ? args : CODES) {
+			failures += check(spec);
+		}
+
+		if (failures > 0) {
+			System.out.println("FAILED: " + failures);
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Checks the session calls of a single code.
+	 * @param spec the code
+	 * @return the number of calls that allocated
+	 * @throws UncorrectableErrorException if the payload cannot be decoded uniquely
+	 */
+	private static int check(String spec) throws UncorrectableErrorException {
+		IECC code = makeCode(spec);
+		CodeSession session = new CodeSession(code);
+		Random random = new Random(10);
+
+		int length = code.getLength();
+		int numOfBlocks = Math.max(1, PAYLOAD_BYTES * Byte.SIZE / code.getDimension());
+		int plainLen = numOfBlocks * code.getDimension();
+		int codeLen = numOfBlocks * length;
+
+		long[] plaintext = new long[BitUtil.numOfWords(plainLen)];
+		for (int i = 0; i < plaintext.length; i++) {
+			plaintext[i] = random.nextLong();
+		}
+
+		long[] codetext = new long[BitUtil.numOfWords(codeLen)];
+		session.encode(plaintext, 0, plainLen, codetext, 0);
+
+		for (int b = 0; b < numOfBlocks; b++) { // a single error in every block
+			long bit = (long) b * length + random.nextInt(length);
+			codetext[(int) (bit >>> 6)] ^= 1L << bit;
+		}
+
+		// the whole bytes of a buffer can hold one more block than the long[] payload, which is padded with zeros
+		ByteBuffer plainBuffer = ByteBuffer.allocateDirect((int) BitUtil.numOfBytes(plainLen));
+		ByteBuffer codeBuffer = ByteBuffer.allocateDirect((int) BitUtil.numOfBytes(codeLen + length));
+		ByteBuffer decodedBuffer = ByteBuffer.allocateDirect((int) BitUtil.numOfBytes(plainLen + 2L * code.getDimension()));
+		BitUtil.copyBits(plaintext, 0, plainBuffer, 0, plainLen);
+		BitUtil.copyBits(codetext, 0, codeBuffer, 0, codeLen);
+
+		int failures = 0;
+
+		failures += measure(spec + " encode(long[])", () -> {
+			session.encode(plaintext, 0, plainLen);
+			return session.getOutputLength();
+		});
+		failures += measure(spec + " decodeAlways(long[])", () -> {
+			session.decodeAlways(codetext, 0, codeLen);
+			return session.getOutput()[0];
+		});
+		failures += measure(spec + " decodeIfUnique(long[])", () -> {
+			session.decodeIfUnique(codetext, 0, codeLen);
+			return session.getOutput()[0];
+		});
+		failures += measure(spec + " encode(ByteBuffer)", () -> {
+			plainBuffer.clear();
+			codeBuffer.clear();
+			session.encode(plainBuffer, codeBuffer);
+			return codeBuffer.position();
+		});
+
+		BitUtil.copyBits(codetext, 0, codeBuffer, 0, codeLen); // the blocks with errors again
+
+		failures += measure(spec + " decodeAlways(ByteBuffer)", () -> {
+			codeBuffer.clear();
+			decodedBuffer.clear();
+			session.decodeAlways(codeBuffer, decodedBuffer);
+			return decodedBuffer.position();
+		});
+		failures += measure(spec + " decodeIfUnique(ByteBuffer)", () -> {
+			codeBuffer.clear();
+			decodedBuffer.clear();
+			session.decodeIfUnique(codeBuffer, decodedBuffer);
+			return decodedBuffer.position();
+		});
+
+		return failures;
+	}
+
+	/**
+	 * Warms up a call, and then counts the bytes that the calling thread allocates in the measured rounds.
+	 * @param name the name of the call
+	 * @param operation the call
+	 * @return 1 if the call allocated, otherwise 0
+	 * @throws UncorrectableErrorException if the payload cannot be decoded uniquely
+	 */
+	private static int measure(String name, Operation operation) throws UncorrectableErrorException {
+		long thread = Thread.currentThread().getId();
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			sink += operation.run();
+		}
+
+		long overhead = THREADS.getThreadAllocatedBytes(thread); // the bytes of reading the counter itself
+		overhead = THREADS.getThreadAllocatedBytes(thread) - overhead;
+
+		long allocated = THREADS.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			sink += operation.run();
+		}
+		allocated = THREADS.getThreadAllocatedBytes(thread) - allocated - overhead;
+
+		System.out.println(name + ": " + allocated + " bytes in " + MEASURED_ROUNDS + " calls");
+		return (allocated == 0) ? 0 : 1;
+	}
+
+	/**
+	 * Makes a code from its description.
+	 * @param spec the code, as hamming:r or rm:k:r
+	 * @return the code
+	 */
+	private static IECC makeCode(String spec) {
+		String[] parts = spec.split(":");
+
+		switch (parts[0]) {
+			case "hamming":
+				return new HammingCode(Integer.parseInt(parts[1]));
+			case "rm":
+				return new ReedMullerCode(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+			default:
+				throw new IllegalArgumentException("Unknown code: " + spec);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * The operations that the JMH benchmarks measure, made from the parameters of a benchmark.
+ *
+ * JMH does not accept benchmark classes in the default package, and a class in a named package cannot use the codes,
+ * which are in the default package. So the benchmarks look up this class once in their setup,
+ * and measure the operation that it returns, which runs on the calling thread except for the long payloads
+ * of the BitSet methods, which are processed on the common ForkJoinPool.
+ *
+ * The codes are written as hamming:r, rm:k:r, secded:dataBits (the extended hamming codes),
+ * or il:depth:code (depth blocks of code interleaved). The payload sizes are block (a single block of plain text)
+ * or a number of bytes with an optional k or m suffix.
+ *
+ * @author 160021429
+ */
+public final class EccWorkload {
+	/**
+	 * The private constructor, as this class only has static methods.
+	 */
+	private EccWorkload() {
+	}
+
+	/**
+	 * Makes the operation of a benchmark.
+	 * @param name encode, decodeAlways, decodeIfUnique, construct or generateG
+	 * @param spec the code
+	 * @param size the payload size, which is not used by the construction
+	 * @param density the probability of a bit error in the coded text, which is only used by the decoding
+	 * @param api bitset for the BitSet methods of the code, or session for a CodeSession, which reuses its buffers
+	 * @return the operation, whose result depends on all of its work
+	 */
+	public static LongSupplier operation(String name, String spec, String size, String density, String api) {
+		switch (name) {
+			case "construct":
+				return () -> makeCode(spec).getLength();
+			case "generateG":
+				return generateG(spec);
+			case "encode":
+			case "decodeAlways":
+			case "decodeIfUnique":
+				return coding(name, makeCode(spec), size, Double.parseDouble(density), api);
+			default:
+				throw new IllegalArgumentException("Unknown benchmark: " + name);
+		}
+	}
+
+	/**
+	 * Makes the generation of the generator matrix of a Reed Muller code.
+	 * @param spec the code, as rm:k:r
+	 * @return the operation
+	 */
+	private static LongSupplier generateG(String spec) {
+		String[] parts = spec.split(":");
+		if (!parts[0].equals("rm")) {
+			throw new IllegalArgumentException("generateG needs a Reed Muller code: " + spec);
+		}
+
+		int k = Integer.parseInt(parts[1]);
+		int r = Integer.parseInt(parts[2]);
+		IECC code = makeCode(spec);
+		int dimension = code.getDimension();
+		int length = code.getLength();
+
+		return () -> MatrixOperation.generateG(k, r, dimension, length).getRows();
+	}
+
+	/**
+	 * Makes the encoding or the decoding of a random payload.
+	 * @param name encode, decodeAlways or decodeIfUnique
+	 * @param code the code
+	 * @param size the payload size
+	 * @param density the probability of a bit error in the coded text
+	 * @param api bitset or session
+	 * @return the operation
+	 */
+	private static LongSupplier coding(String name, IECC code, String size, double density, String api) {
+		int len = parseSize(size, code.getDimension());
+		Random random = new Random(len);
+
+		long[] plain = new long[BitUtil.numOfWords(len)];
+		for (int i = 0; i < plain.length; i++) {
+			plain[i] = random.nextLong();
+		}
+		if (len % BitUtil.WORD_SIZE != 0) {
+			plain[plain.length - 1] &= BitUtil.lowMask(len % BitUtil.WORD_SIZE);
+		}
+
+		BitSet plaintext = BitSet.valueOf(plain);
+		int codeLen = BitUtil.numOfBlocks(len, code.getDimension()) * code.getLength();
+		BitSet received = addErrors(code.encode(plaintext, len), codeLen, density, random);
+		long[] receivedWords = received.toLongArray();
+		boolean session = api.equals("session");
+		CodeSession codeSession = new CodeSession(code);
+
+		if (!session && !api.equals("bitset")) {
+			throw new IllegalArgumentException("Unknown api: " + api);
+		}
+
+		switch (name) {
+			case "encode":
+				return session ? () -> codeSession.encode(plain, 0, len)[0] : () -> code.encode(plaintext, len).cardinality();
+			case "decodeAlways":
+				return session ? () -> codeSession.decodeAlways(receivedWords, 0, codeLen)[0]
+						: () -> code.decodeAlways(received, codeLen).cardinality();
+			default:
+				return session ? () -> {
+					try {
+						return codeSession.decodeIfUnique(receivedWords, 0, codeLen)[0];
+					} catch (UncorrectableErrorException e) {
+						return -1L;
+					}
+				} : () -> {
+					try {
+						return code.decodeIfUnique(received, codeLen).cardinality();
+					} catch (UncorrectableErrorException e) {
+						return -1L;
+					}
+				};
+		}
+	}
+
+	/**
+	 * Flips each bit of the coded text with the given probability.
+	 * @param codetext the coded text
+	 * @param len the length of the coded text
+	 * @param density the probability of an error
+	 * @param random the random number generator
+	 * @return the received text
+	 */
+	private static BitSet addErrors(BitSet codetext, int len, double density, Random random) {
+		BitSet received = (BitSet) codetext.clone();
+
+		if (density <= 0) {
+			return received;
+		}
+
+		// the gaps between the errors are geometrically distributed
+		double log = Math.log(1 - density);
+		for (long i = (long) (Math.log(random.nextDouble()) / log); i < len;
+				i += 1 + (long) (Math.log(random.nextDouble()) / log)) {
+			received.flip((int) i);
+		}
+
+		return received;
+	}
+
+	/**
+	 * Makes a code from its description.
+	 * @param spec the code, as hamming:r, rm:k:r, secded:dataBits, or il:depth:code
+	 * @return the code
+	 */
+	private static IECC makeCode(String spec) {
+		String[] parts = spec.split(":");
+
+		switch (parts[0]) {
+			case "hamming":
+				return new HammingCode(Integer.parseInt(parts[1]));
+			case "rm":
+				return new ReedMullerCode(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+			case "secded":
+				return new ExtendedHammingCode(Integer.parseInt(parts[1]));
+			case "il":
+				return new InterleavedCode(makeCode(spec.split(":", 3)[2]), Integer.parseInt(parts[1]));
+			default:
+				throw new IllegalArgumentException("Unknown code: " + spec);
+		}
+	}
+
+	/**
+	 * Converts a payload size to a number of bits.
+	 * @param size the size, as block or a number of bytes with an optional k or m suffix
+	 * @param dimension the dimension of the code
+	 * @return the number of plain text bits
+	 */
+	private static int parseSize(String size, int dimension) {
+		String s = size.toLowerCase(Locale.ROOT);
+
+		if (s.equals("block")) {
+			return dimension;
+		}
+
+		long multiplier = 1;
+		if (s.endsWith("k")) {
+			multiplier = 1L << 10;
+			s = s.substring(0, s.length() - 1);
+		} else if (s.endsWith("m")) {
+			multiplier = 1L << 20;
+			s = s.substring(0, s.length() - 1);
+		}
+
+		return Math.toIntExact(Long.parseLong(s) * multiplier * Byte.SIZE);
+	}
+}
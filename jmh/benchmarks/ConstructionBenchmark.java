@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of the constructor of every code of the grid, which builds the tables of the code.
+ *
+ * @author 160021429
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+	@Param({"hamming:3", "hamming:4", "hamming:6", "hamming:8", "hamming:10",
+		"rm:3:1", "rm:5:1", "rm:5:2", "rm:6:2", "rm:7:2", "rm:8:3", "rm:10:3", "secded:32", "secded:64",
+		"il:64:hamming:6"})
+	public String code;
+
+	private LongSupplier construct;
+
+	/**
+	 * Makes the operation of the trial.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.construct = Workloads.operation("construct", this.code, "block", "0", "bitset");
+	}
+
+	/**
+	 * Constructs the code.
+	 * @return the length of the code
+	 */
+	@Benchmark
+	public long construct() {
+		return this.construct.getAsLong();
+	}
+}
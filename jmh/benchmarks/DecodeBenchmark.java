@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The throughput of decodeAlways and decodeIfUnique, for every code of the grid, every payload size
+ * and several densities of random bit errors, with the BitSet methods of the code and with a CodeSession.
+ * A payload that decodeIfUnique rejects is still measured, as the rejection is part of the work.
+ *
+ * @author 160021429
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+	@Param({"hamming:3", "hamming:4", "hamming:6", "hamming:8", "hamming:10",
+		"rm:3:1", "rm:5:1", "rm:5:2", "rm:6:2", "rm:7:2", "rm:8:3", "rm:10:3", "secded:32", "secded:64",
+		"il:64:hamming:6"})
+	public String code;
+
+	@Param({"block", "64k", "1m", "32m"})
+	public String size;
+
+	@Param({"0", "0.0001", "0.001"})
+	public String density;
+
+	@Param({"bitset", "session"})
+	public String api;
+
+	private LongSupplier decodeAlways;
+	private LongSupplier decodeIfUnique;
+
+	/**
+	 * Makes the received text with the errors and the operations of the trial.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.decodeAlways = Workloads.operation("decodeAlways", this.code, this.size, this.density, this.api);
+		this.decodeIfUnique = Workloads.operation("decodeIfUnique", this.code, this.size, this.density, this.api);
+	}
+
+	/**
+	 * Decodes the received text with decodeAlways.
+	 * @return a value that depends on the plain text
+	 */
+	@Benchmark
+	public long decodeAlways() {
+		return this.decodeAlways.getAsLong();
+	}
+
+	/**
+	 * Decodes the received text with decodeIfUnique.
+	 * @return a value that depends on the plain text, or -1 if the text is rejected
+	 */
+	@Benchmark
+	public long decodeIfUnique() {
+		return this.decodeIfUnique.getAsLong();
+	}
+}
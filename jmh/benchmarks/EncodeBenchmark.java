@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The throughput of the encoding, for every code of the grid and every payload size,
+ * with the BitSet methods of the code and with a CodeSession.
+ *
+ * @author 160021429
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+	@Param({"hamming:3", "hamming:4", "hamming:6", "hamming:8", "hamming:10",
+		"rm:3:1", "rm:5:1", "rm:5:2", "rm:6:2", "rm:7:2", "rm:8:3", "rm:10:3", "secded:32", "secded:64",
+		"il:64:hamming:6"})
+	public String code;
+
+	@Param({"block", "64k", "1m", "32m"})
+	public String size;
+
+	@Param({"bitset", "session"})
+	public String api;
+
+	private LongSupplier encode;
+
+	/**
+	 * Makes the payload and the operation of the trial.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.encode = Workloads.operation("encode", this.code, this.size, "0", this.api);
+	}
+
+	/**
+	 * Encodes the payload.
+	 * @return a value that depends on the coded text
+	 */
+	@Benchmark
+	public long encode() {
+		return this.encode.getAsLong();
+	}
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of MatrixOperation.generateG, which builds the generator matrix of a Reed Muller code in the standard form.
+ *
+ * @author 160021429
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateGBenchmark {
+	@Param({"rm:3:1", "rm:5:1", "rm:5:2", "rm:6:2", "rm:7:2", "rm:8:3", "rm:10:3"})
+	public String code;
+
+	private LongSupplier generateG;
+
+	/**
+	 * Makes the operation of the trial.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.generateG = Workloads.operation("generateG", this.code, "block", "0", "bitset");
+	}
+
+	/**
+	 * Generates the generator matrix.
+	 * @return the number of rows of the matrix
+	 */
+	@Benchmark
+	public long generateG() {
+		return this.generateG.getAsLong();
+	}
+}
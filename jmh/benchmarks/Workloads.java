@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.LongSupplier;
+
+/**
+ * The lookup of the operations of EccWorkload, which is in the default package with the codes,
+ * so the benchmarks of this package can only reach it by reflection. It is only called in the setup of a trial,
+ * and the benchmark methods call the returned operation directly.
+ *
+ * @author 160021429
+ */
+final class Workloads {
+	/**
+	 * The private constructor, as this class only has static methods.
+	 */
+	private Workloads() {
+	}
+
+	/**
+	 * Makes the operation of a benchmark with EccWorkload.operation.
+	 * @param name the name of the operation
+	 * @param code the code
+	 * @param size the payload size
+	 * @param density the probability of a bit error in the coded text
+	 * @param api bitset or session
+	 * @return the operation
+	 */
+	static LongSupplier operation(String name, String code, String size, String density, String api) {
+		try {
+			return (LongSupplier) Class.forName("EccWorkload")
+					.getMethod("operation", String.class, String.class, String.class, String.class, String.class)
+					.invoke(null, name, code, size, density, api);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new IllegalStateException(cause);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("EccWorkload is not on the class path", e);
+		}
+	}
+}
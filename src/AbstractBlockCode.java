@@ -0,0 +1,1001 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The base class of the block codes, which splits a vector into blocks and encodes or decodes each block.
+ *
+ * The subclasses only implement the encoding and decoding of a single packed block,
+ * and the test of its syndrome.
+ * As the blocks are independent, a long vector is split into chunks of blocks that are processed in parallel,
+ * either on the common ForkJoinPool or on an executor that is supplied by the caller.
+ * Each chunk is a multiple of 64 blocks, so the chunks never share a word of the output,
+ * and the output is bit-identical to the sequential output.
+ * Short vectors are processed on the calling thread, so they do not pay the overhead of the parallel mode.
+ *
+ * The codes of length 64 or less are processed in groups of 64 blocks with a BitSlicer, once the subclass enables it;
+ * only the blocks with a nonzero syndrome are then decoded one by one.
+ * The longer codes test the syndrome of each block first (isCodeword), and copy the message bits of the codewords
+ * straight out (extractMessage), so only the blocks with errors take the correction path of decodeBlock.
+ * The counters of the two paths show how often the fast path applies.
+ *
+ * The long[] and ByteBuffer overloads read the blocks straight from the arrays and buffers of the caller,
+ * and write them straight to the output, without the copies of the BitSet methods.
+ *
+ * @author 160021429
+ */
+public abstract class AbstractBlockCode implements IECC {
+	/**
+	 * The block was a codeword.
+	 */
+	static final int CLEAN = DecodeResult.CLEAN;
+
+	/**
+	 * The block had errors, which were corrected.
+	 */
+	static final int CORRECTED = DecodeResult.CORRECTED;
+
+	/**
+	 * The block does not have a unique closest codeword.
+	 */
+	static final int UNCORRECTABLE = DecodeResult.UNCORRECTABLE;
+
+	/**
+	 * The minimum number of code bits for which a vector is processed in parallel.
+	 */
+	static final long PARALLEL_THRESHOLD = 1L << 20;
+
+	/**
+	 * The number of blocks in a chunk of the parallel mode (a multiple of 64).
+	 */
+	static final int CHUNK_BLOCKS = 64 * 64;
+
+	/**
+	 * The executor that makes forEachChunk process all blocks on the calling thread.
+	 */
+	static final Executor SEQUENTIAL = Runnable::run;
+
+	private final LongAdder fastPathBlocks = new LongAdder(); // the decoded blocks with a zero syndrome
+	private final LongAdder correctionPathBlocks = new LongAdder(); // the decoded blocks that went through decodeBlock
+
+	/**
+	 * Encodes a single block.
+	 * @param message the plain text bits of the block, packed into getDimension() bits
+	 * @param code the array that receives the code bits of the block, which is overwritten completely
+	 */
+	protected abstract void encodeBlock(long[] message, long[] code);
+
+	/**
+	 * Decodes a single block, writing the plain text of a closest codeword.
+	 * @param code the code bits of the block, packed into getLength() bits (the method may modify them)
+	 * @param message the array that receives the plain text bits of the block, which is overwritten completely
+	 * @return CLEAN, CORRECTED, or UNCORRECTABLE if the block does not have a unique closest codeword
+	 */
+	protected abstract int decodeBlock(long[] code, long[] message);
+
+	/**
+	 * Checks if a block is a codeword, which is the fast path of the decoder: the blocks with a zero syndrome
+	 * skip decodeBlock, and their message bits are copied out with extractMessage.
+	 * @param code the code bits of the block
+	 * @return true if the syndrome of the block is zero, or false if the block should go through decodeBlock
+	 */
+	protected abstract boolean isCodeword(long[] code);
+
+	/**
+	 * Copies the message bits out of a codeword, which is only called when isCodeword returned true.
+	 * @param code the code bits of the block
+	 * @param message the array that receives the plain text bits of the block, which is overwritten completely
+	 */
+	protected abstract void extractMessage(long[] code, long[] message);
+
+	/**
+	 * Checks if the code corrects any error. The codes that correct none have no decoding that decodeIfUnique can trust,
+	 * so every decodeIfUnique method (and the sessions) throws UncorrectableErrorException for them, whatever the input.
+	 * @return true, unless a subclass knows that its minimum distance is 2 or less
+	 */
+	boolean correctsErrors() {
+		return true;
+	}
+
+	/**
+	 * Returns the number of decoded blocks that took the fast path, because their syndrome was zero.
+	 * The counters are the only state of a code that changes, and they are safe to update from any thread.
+	 * @return the number of blocks since the creation of the code or the last reset
+	 */
+	public long getFastPathCount() {
+		return this.fastPathBlocks.sum();
+	}
+
+	/**
+	 * Returns the number of decoded blocks that took the correction path, because their syndrome was not zero.
+	 * @return the number of blocks since the creation of the code or the last reset
+	 */
+	public long getCorrectionPathCount() {
+		return this.correctionPathBlocks.sum();
+	}
+
+	/**
+	 * Resets the counters of the fast path and of the correction path.
+	 */
+	public void resetPathCounters() {
+		this.fastPathBlocks.reset();
+		this.correctionPathBlocks.reset();
+	}
+
+	/**
+	 * Returns the slicer of the bit-sliced mode.
+	 * The subclasses that support the mode make their slicer with BitSlicer.forCode at the end of their constructors,
+	 * as it is derived from encodeBlock, and keep it in a final field, so that a shared instance is safely published.
+	 * @return the slicer, or null if the bit-sliced mode is not enabled
+	 */
+	BitSlicer getSlicer() {
+		return null;
+	}
+
+	/**
+	 * Converts a vector of plaintext to the corresponding coded text.
+	 * @param plaintext the binary input
+	 * @param len the length of the plaintext
+	 * @return the encoded version of plaintext (padded with zeros to a whole number of blocks)
+	 */
+	@Override
+	public BitSet encode(BitSet plaintext, int len) {
+		return encode(plaintext, len, null);
+	}
+
+	/**
+	 * Converts a vector of plaintext to the corresponding coded text, processing long vectors on the given executor.
+	 * @param plaintext the binary input
+	 * @param len the length of the plaintext
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 * @return the encoded version of plaintext (padded with zeros to a whole number of blocks)
+	 */
+	public BitSet encode(BitSet plaintext, int len, Executor executor) {
+		int dimension = getDimension();
+		int length = getLength();
+		int numOfBlocks = BitUtil.numOfBlocks(len, dimension);
+
+		long[] in = plaintext.toLongArray();
+		long[] out = new long[BitUtil.numOfWords((long) length * numOfBlocks)];
+
+		encodeBlocks(in, 0, (long) dimension * numOfBlocks, out, 0, numOfBlocks, executor);
+
+		return BitSet.valueOf(out);
+	}
+
+	/**
+	 * Decodes a vector of coded text of any length, padding it to whole number of blocks with 0 bits
+	 * and then replacing each block with the plaintext corresponding to A closest codeword (in Hamming distance).
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @return the decoded version of plaintext (padded to a whole number of blocks)
+	 */
+	@Override
+	public BitSet decodeAlways(BitSet codetext, int len) {
+		return decodeAlways(codetext, len, null);
+	}
+
+	/**
+	 * Decodes a vector of coded text like decodeAlways(BitSet, int), processing long vectors on the given executor.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 * @return the decoded version of plaintext (padded to a whole number of blocks)
+	 */
+	public BitSet decodeAlways(BitSet codetext, int len, Executor executor) {
+		return decode(codetext, len, false, executor);
+	}
+
+	/**
+	 * Decodes a vector of coded text of any length, padding it to whole number of blocks with 0 bits
+	 * and then replacing each block with the plaintext corresponding to the unique closest codeword (in Hamming distance)
+	 * if there isn't one then it throws an exception.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @return the decoded version of plaintext (padded to a whole number of blocks)
+	 * @throws UncorrectableErrorException if there is no uniquely best decoding
+	 */
+	@Override
+	public BitSet decodeIfUnique(BitSet codetext, int len) throws UncorrectableErrorException {
+		return decodeIfUnique(codetext, len, null);
+	}
+
+	/**
+	 * Decodes a vector of coded text like decodeIfUnique(BitSet, int), processing long vectors on the given executor.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 * @return the decoded version of plaintext (padded to a whole number of blocks)
+	 * @throws UncorrectableErrorException if there is no uniquely best decoding
+	 */
+	public BitSet decodeIfUnique(BitSet codetext, int len, Executor executor) throws UncorrectableErrorException {
+		BitSet decoded = decode(codetext, len, true, executor);
+
+		if (decoded == null) {
+			throw new UncorrectableErrorException();
+		}
+		return decoded;
+	}
+
+	/**
+	 * Decodes a vector of coded text like decodeAlways(BitSet, int), and records the status of every block.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @return the decoded version of plaintext (padded to a whole number of blocks) and the status of each block
+	 */
+	@Override
+	public DecodeResult decodeWithStatus(BitSet codetext, int len) {
+		return decodeWithStatus(codetext, len, null);
+	}
+
+	/**
+	 * Decodes a vector of coded text like decodeWithStatus(BitSet, int), processing long vectors on the given executor.
+	 * The chunks of the parallel mode are multiples of 32 blocks, so they never share a word of the statuses.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 * @return the decoded version of plaintext (padded to a whole number of blocks) and the status of each block
+	 */
+	public DecodeResult decodeWithStatus(BitSet codetext, int len, Executor executor) {
+		int dimension = getDimension();
+		int length = getLength();
+
+		if (dimension <= 0) {
+			throw new IllegalStateException("Cannot process with " + this);
+		}
+
+		int numOfBlocks = BitUtil.numOfBlocks(len, length);
+		long[] in = codetext.toLongArray();
+		long[] out = new long[BitUtil.numOfWords((long) dimension * numOfBlocks)];
+		long[] statuses = DecodeResult.newStatuses(numOfBlocks);
+		long inEnd = (long) length * numOfBlocks;
+
+		forEachChunk(numOfBlocks, executor, (from, to) ->
+				decodeRange(in, 0, inEnd, out, 0, from, to, false, statuses, newCode(), newMessage()));
+
+		return new DecodeResult(BitSet.valueOf(out), numOfBlocks, statuses);
+	}
+
+	/**
+	 * Decodes all blocks of the coded text.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @param checkIfUnique true if the decoding should stop at the first block without a unique closest codeword
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 * @return the decoded version of plaintext, or null if checkIfUnique is true and a block was uncorrectable
+	 */
+	private BitSet decode(BitSet codetext, int len, boolean checkIfUnique, Executor executor) {
+		int dimension = getDimension();
+		int length = getLength();
+		int numOfBlocks = BitUtil.numOfBlocks(len, length);
+
+		long[] in = codetext.toLongArray();
+		long[] out = new long[BitUtil.numOfWords((long) dimension * numOfBlocks)];
+
+		boolean unique = decodeBlocks(in, 0, (long) length * numOfBlocks, out, 0, numOfBlocks, checkIfUnique, executor);
+
+		return unique ? BitSet.valueOf(out) : null;
+	}
+
+	/**
+	 * Converts a range of packed plaintext to the corresponding coded text, which is written to the given array.
+	 * @param plaintext the packed binary input
+	 * @param offset the index of the first bit of the plaintext
+	 * @param len the length of the plaintext
+	 * @param codetext the packed array that receives the coded text
+	 * @param codeOffset the index of the first bit of the coded text
+	 * @return the number of bits of the coded text
+	 */
+	@Override
+	public long encode(long[] plaintext, long offset, int len, long[] codetext, long codeOffset) {
+		int numOfBlocks = countBlocks(len, getDimension());
+
+		encodeBlocks(plaintext, offset, offset + len, codetext, codeOffset, numOfBlocks, null);
+		return (long) numOfBlocks * getLength();
+	}
+
+	/**
+	 * Decodes a range of packed coded text like decodeAlways(BitSet, int), and writes the plaintext to the given array.
+	 * @param codetext the packed binary input
+	 * @param offset the index of the first bit of the coded text
+	 * @param len the length of the coded text
+	 * @param plaintext the packed array that receives the plaintext
+	 * @param plainOffset the index of the first bit of the plaintext
+	 * @return the number of bits of the plaintext
+	 */
+	@Override
+	public long decodeAlways(long[] codetext, long offset, int len, long[] plaintext, long plainOffset) {
+		int numOfBlocks = countBlocks(len, getLength());
+
+		decodeBlocks(codetext, offset, offset + len, plaintext, plainOffset, numOfBlocks, false, null);
+		return (long) numOfBlocks * getDimension();
+	}
+
+	/**
+	 * Decodes a range of packed coded text like decodeIfUnique(BitSet, int), and writes the plaintext to the given array.
+	 * @param codetext the packed binary input
+	 * @param offset the index of the first bit of the coded text
+	 * @param len the length of the coded text
+	 * @param plaintext the packed array that receives the plaintext
+	 * @param plainOffset the index of the first bit of the plaintext
+	 * @return the number of bits of the plaintext
+	 * @throws UncorrectableErrorException if there is no uniquely best decoding
+	 */
+	@Override
+	public long decodeIfUnique(long[] codetext, long offset, int len, long[] plaintext, long plainOffset)
+			throws UncorrectableErrorException {
+		int numOfBlocks = countBlocks(len, getLength());
+
+		if (!decodeBlocks(codetext, offset, offset + len, plaintext, plainOffset, numOfBlocks, true, null)) {
+			throw new UncorrectableErrorException();
+		}
+		return (long) numOfBlocks * getDimension();
+	}
+
+	/**
+	 * Decodes a range of packed coded text like decodeAlways(BitSet, int), and writes the plaintext over the coded text.
+	 * The blocks are decoded in order on the calling thread, and each block (or group of 64 blocks) is read
+	 * before its plaintext is written, which never reaches the blocks that are still to be read.
+	 * @param text the packed coded text, which receives the plaintext
+	 * @param offset the index of the first bit of the coded text and of the plaintext
+	 * @param len the length of the coded text
+	 * @return the number of bits of the plaintext
+	 */
+	@Override
+	public long decodeAlwaysInPlace(long[] text, long offset, int len) {
+		int numOfBlocks = countBlocks(len, getLength());
+
+		decodeRange(text, offset, offset + len, text, offset, 0, numOfBlocks, false, newCode(), newMessage());
+		return (long) numOfBlocks * getDimension();
+	}
+
+	/**
+	 * Decodes a range of packed coded text like decodeIfUnique(BitSet, int), and writes the plaintext over the coded text.
+	 * @param text the packed coded text, which receives the plaintext
+	 * @param offset the index of the first bit of the coded text and of the plaintext
+	 * @param len the length of the coded text
+	 * @return the number of bits of the plaintext
+	 * @throws UncorrectableErrorException if there is no uniquely best decoding,
+	 * 	in which case the blocks before the uncorrectable block may already have been overwritten
+	 */
+	@Override
+	public long decodeIfUniqueInPlace(long[] text, long offset, int len) throws UncorrectableErrorException {
+		int numOfBlocks = countBlocks(len, getLength());
+
+		if (!decodeRange(text, offset, offset + len, text, offset, 0, numOfBlocks, true, newCode(), newMessage())) {
+			throw new UncorrectableErrorException();
+		}
+		return (long) numOfBlocks * getDimension();
+	}
+
+	/**
+	 * Converts the remaining bytes of the plaintext buffer to the corresponding coded text,
+	 * which is written to the code buffer. The buffers can be heap or direct buffers.
+	 * @param plaintext the binary input
+	 * @param codetext the buffer that receives the coded text
+	 * @throws BufferOverflowException if the code buffer does not have enough space, in which case neither buffer is changed
+	 */
+	@Override
+	public void encode(ByteBuffer plaintext, ByteBuffer codetext) {
+		int numOfBlocks = countBlocks((long) plaintext.remaining() * Byte.SIZE, getDimension());
+		int codeBytes = reserve(codetext, (long) numOfBlocks * getLength());
+
+		encodeBlocks(plaintext, codetext, numOfBlocks);
+
+		plaintext.position(plaintext.limit());
+		codetext.position(codetext.position() + codeBytes);
+	}
+
+	/**
+	 * Decodes the remaining bytes of the code buffer like decodeAlways(BitSet, int),
+	 * and writes the plaintext to the plaintext buffer. The buffers can be heap or direct buffers.
+	 * @param codetext the binary input
+	 * @param plaintext the buffer that receives the plaintext
+	 * @throws BufferOverflowException if the plaintext buffer does not have enough space, in which case neither buffer is changed
+	 */
+	@Override
+	public void decodeAlways(ByteBuffer codetext, ByteBuffer plaintext) {
+		int numOfBlocks = countBlocks((long) codetext.remaining() * Byte.SIZE, getLength());
+		int plainBytes = reserve(plaintext, (long) numOfBlocks * getDimension());
+
+		decodeBlocks(codetext, plaintext, numOfBlocks, false);
+
+		codetext.position(codetext.limit());
+		plaintext.position(plaintext.position() + plainBytes);
+	}
+
+	/**
+	 * Decodes the remaining bytes of the code buffer like decodeIfUnique(BitSet, int),
+	 * and writes the plaintext to the plaintext buffer. The buffers can be heap or direct buffers.
+	 * @param codetext the binary input
+	 * @param plaintext the buffer that receives the plaintext
+	 * @throws BufferOverflowException if the plaintext buffer does not have enough space, in which case neither buffer is changed
+	 * @throws UncorrectableErrorException if there is no uniquely best decoding, in which case the positions are not changed
+	 */
+	@Override
+	public void decodeIfUnique(ByteBuffer codetext, ByteBuffer plaintext) throws UncorrectableErrorException {
+		int numOfBlocks = countBlocks((long) codetext.remaining() * Byte.SIZE, getLength());
+		int plainBytes = reserve(plaintext, (long) numOfBlocks * getDimension());
+
+		if (!decodeBlocks(codetext, plaintext, numOfBlocks, true)) {
+			throw new UncorrectableErrorException();
+		}
+
+		codetext.position(codetext.limit());
+		plaintext.position(plaintext.position() + plainBytes);
+	}
+
+	/**
+	 * Encodes the blocks of a packed vector into another packed vector.
+	 * @param in the plaintext
+	 * @param inOffset the index of the first bit of the plaintext
+	 * @param inEnd the index after the last bit of the plaintext, the bits from which are read as zeros
+	 * @param out the array that receives the coded text
+	 * @param outOffset the index of the first bit of the coded text
+	 * @param numOfBlocks the number of blocks
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 */
+	private void encodeBlocks(long[] in, long inOffset, long inEnd, long[] out, long outOffset, int numOfBlocks,
+			Executor executor) {
+		forEachChunk(numOfBlocks, isWordAligned(outOffset) ? executor : SEQUENTIAL, (from, to) -> {
+			encodeRange(in, inOffset, inEnd, out, outOffset, from, to, newMessage(), newCode());
+			return true;
+		});
+	}
+
+	/**
+	 * Decodes the blocks of a packed vector into another packed vector.
+	 * @param in the coded text
+	 * @param inOffset the index of the first bit of the coded text
+	 * @param inEnd the index after the last bit of the coded text, the bits from which are read as zeros
+	 * @param out the array that receives the plaintext
+	 * @param outOffset the index of the first bit of the plaintext
+	 * @param numOfBlocks the number of blocks
+	 * @param checkIfUnique true if the decoding should stop at the first block without a unique closest codeword
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 * @return false if checkIfUnique is true and a block was uncorrectable
+	 */
+	private boolean decodeBlocks(long[] in, long inOffset, long inEnd, long[] out, long outOffset, int numOfBlocks,
+			boolean checkIfUnique, Executor executor) {
+		return forEachChunk(numOfBlocks, isWordAligned(outOffset) ? executor : SEQUENTIAL, (from, to) ->
+				decodeRange(in, inOffset, inEnd, out, outOffset, from, to, checkIfUnique, newCode(), newMessage()));
+	}
+
+	/**
+	 * Encodes the blocks from the position of a buffer into another buffer.
+	 * The chunks of the parallel mode start on byte boundaries, so they never share a byte of the output.
+	 * @param in the plaintext buffer, which is read up to its limit
+	 * @param out the buffer that receives the coded text
+	 * @param numOfBlocks the number of blocks
+	 */
+	private void encodeBlocks(ByteBuffer in, ByteBuffer out, int numOfBlocks) {
+		long inOffset = (long) in.position() * Byte.SIZE;
+		long outOffset = (long) out.position() * Byte.SIZE;
+
+		forEachChunk(numOfBlocks, null, (from, to) -> {
+			encodeRange(in, inOffset, out, outOffset, from, to, newMessage(), newCode());
+			return true;
+		});
+	}
+
+	/**
+	 * Decodes the blocks from the position of a buffer into another buffer.
+	 * @param in the code buffer, which is read up to its limit
+	 * @param out the buffer that receives the plaintext
+	 * @param numOfBlocks the number of blocks
+	 * @param checkIfUnique true if the decoding should stop at the first block without a unique closest codeword
+	 * @return false if checkIfUnique is true and a block was uncorrectable
+	 */
+	private boolean decodeBlocks(ByteBuffer in, ByteBuffer out, int numOfBlocks, boolean checkIfUnique) {
+		long inOffset = (long) in.position() * Byte.SIZE;
+		long outOffset = (long) out.position() * Byte.SIZE;
+
+		return forEachChunk(numOfBlocks, null, (from, to) ->
+				decodeRange(in, inOffset, out, outOffset, from, to, checkIfUnique, newCode(), newMessage()));
+	}
+
+	/**
+	 * Encodes a range of blocks of a packed vector on the calling thread, with the given working arrays.
+	 * @param in the plaintext
+	 * @param inOffset the index of the first bit of the plaintext
+	 * @param inEnd the index after the last bit of the plaintext, the bits from which are read as zeros
+	 * @param out the array that receives the coded text
+	 * @param outOffset the index of the first bit of the coded text
+	 * @param from the index of the first block
+	 * @param to the index after the last block
+	 * @param message the working array of a plain text block
+	 * @param code the working array of a code block
+	 */
+	void encodeRange(long[] in, long inOffset, long inEnd, long[] out, long outOffset, int from, int to,
+			long[] message, long[] code) {
+		int dimension = getDimension();
+		int length = getLength();
+		int b = from;
+		BitSlicer slicer = getSlicer();
+
+		if (slicer != null) {
+			for (; b + BitSlicer.GROUP_SIZE <= to; b += BitSlicer.GROUP_SIZE) {
+				for (int i = 0; i < BitSlicer.GROUP_SIZE; i++) {
+					message[i] = readBits(in, inOffset + (long) (b + i) * dimension, inEnd, dimension);
+				}
+				slicer.encode(message, code);
+				for (int i = 0; i < BitSlicer.GROUP_SIZE; i++) {
+					BitUtil.setBits(out, outOffset + (long) (b + i) * length, length, code[i]);
+				}
+			}
+
+			Arrays.fill(message, 0L); // the remaining blocks are encoded one by one, from clean working arrays
+		}
+
+		for (; b < to; b++) {
+			readBlock(in, inOffset + (long) b * dimension, inEnd, message, dimension);
+			encodeBlock(message, code);
+			BitUtil.copyBits(code, 0, out, outOffset + (long) b * length, length);
+		}
+	}
+
+	/**
+	 * Decodes a range of blocks of a packed vector on the calling thread, with the given working arrays.
+	 * @param in the coded text
+	 * @param inOffset the index of the first bit of the coded text
+	 * @param inEnd the index after the last bit of the coded text, the bits from which are read as zeros
+	 * @param out the array that receives the plaintext
+	 * @param outOffset the index of the first bit of the plaintext
+	 * @param from the index of the first block
+	 * @param to the index after the last block
+	 * @param checkIfUnique true if the decoding should stop at the first block without a unique closest codeword
+	 * @param code the working array of a code block
+	 * @param message the working array of a plain text block
+	 * @return false if checkIfUnique is true and a block was uncorrectable
+	 */
+	boolean decodeRange(long[] in, long inOffset, long inEnd, long[] out, long outOffset, int from, int to,
+			boolean checkIfUnique, long[] code, long[] message) {
+		return decodeRange(in, inOffset, inEnd, out, outOffset, from, to, checkIfUnique, null, code, message);
+	}
+
+	/**
+	 * Decodes a range of blocks of a packed vector on the calling thread, and records the status of every block
+	 * that is not CLEAN.
+	 * @param in the coded text
+	 * @param inOffset the index of the first bit of the coded text
+	 * @param inEnd the index after the last bit of the coded text, the bits from which are read as zeros
+	 * @param out the array that receives the plaintext
+	 * @param outOffset the index of the first bit of the plaintext
+	 * @param from the index of the first block
+	 * @param to the index after the last block
+	 * @param checkIfUnique true if the decoding should stop at the first block without a unique closest codeword
+	 * @param statuses the packed statuses of all blocks (see DecodeResult), or null
+	 * @param code the working array of a code block
+	 * @param message the working array of a plain text block
+	 * @return false if checkIfUnique is true and a block was uncorrectable
+	 */
+	boolean decodeRange(long[] in, long inOffset, long inEnd, long[] out, long outOffset, int from, int to,
+			boolean checkIfUnique, long[] statuses, long[] code, long[] message) {
+		if (checkIfUnique && !correctsErrors()) {
+			return false; // nothing is written, so the in-place mode leaves the input as it is
+		}
+
+		int dimension = getDimension();
+		int length = getLength();
+		int b = from;
+		int fast = 0; // the blocks of the fast path
+		int slow = 0; // the blocks of the correction path
+		BitSlicer slicer = getSlicer();
+
+		if (slicer != null) {
+			for (; b + BitSlicer.GROUP_SIZE <= to; b += BitSlicer.GROUP_SIZE) {
+				for (int i = 0; i < BitSlicer.GROUP_SIZE; i++) {
+					code[i] = readBits(in, inOffset + (long) (b + i) * length, inEnd, length);
+				}
+
+				long dirty = slicer.decode(code, message);
+				fast += BitSlicer.GROUP_SIZE - Long.bitCount(dirty);
+				slow += Long.bitCount(dirty);
+
+				// the dirty blocks are decoded before any block of the group is written, so the output may overlap the input
+				for (; dirty != 0L; dirty &= dirty - 1) {
+					int i = Long.numberOfTrailingZeros(dirty);
+					long first = message[0];
+					code[0] = readBits(in, inOffset + (long) (b + i) * length, inEnd, length);
+
+					int status = decodeBlock(code, message);
+					if (status == UNCORRECTABLE && checkIfUnique) {
+						countPaths(fast, slow);
+						return false;
+					}
+					if (statuses != null) {
+						DecodeResult.setStatus(statuses, b + i, status);
+					}
+
+					long decoded = message[0];
+					message[0] = first;
+					message[i] = decoded;
+				}
+
+				for (int i = 0; i < BitSlicer.GROUP_SIZE; i++) {
+					BitUtil.setBits(out, outOffset + (long) (b + i) * dimension, dimension, message[i]);
+				}
+			}
+
+			Arrays.fill(code, 0L); // the remaining blocks are decoded one by one, from clean working arrays
+		}
+
+		for (; b < to; b++) {
+			readBlock(in, inOffset + (long) b * length, inEnd, code, length);
+
+			if (isCodeword(code)) {
+				extractMessage(code, message);
+				fast++;
+			} else {
+				slow++;
+
+				int status = decodeBlock(code, message);
+				if (status == UNCORRECTABLE && checkIfUnique) {
+					countPaths(fast, slow);
+					return false;
+				}
+				if (statuses != null) {
+					DecodeResult.setStatus(statuses, b, status);
+				}
+			}
+			BitUtil.copyBits(message, 0, out, outOffset + (long) b * dimension, dimension);
+		}
+
+		countPaths(fast, slow);
+		return true;
+	}
+
+	/**
+	 * Encodes a range of blocks of a buffer on the calling thread, with the given working arrays.
+	 * @param in the plaintext buffer, which is read up to its limit
+	 * @param inOffset the index of the first bit of the plaintext in the buffer
+	 * @param out the buffer that receives the coded text
+	 * @param outOffset the index of the first bit of the coded text in the buffer
+	 * @param from the index of the first block
+	 * @param to the index after the last block
+	 * @param message the working array of a plain text block
+	 * @param code the working array of a code block
+	 */
+	void encodeRange(ByteBuffer in, long inOffset, ByteBuffer out, long outOffset, int from, int to,
+			long[] message, long[] code) {
+		int dimension = getDimension();
+		int length = getLength();
+		int b = from;
+		BitSlicer slicer = getSlicer();
+
+		if (slicer != null) {
+			for (; b + BitSlicer.GROUP_SIZE <= to; b += BitSlicer.GROUP_SIZE) {
+				for (int i = 0; i < BitSlicer.GROUP_SIZE; i++) {
+					message[i] = BitUtil.getBits(in, inOffset + (long) (b + i) * dimension, dimension);
+				}
+				slicer.encode(message, code);
+				for (int i = 0; i < BitSlicer.GROUP_SIZE; i++) {
+					BitUtil.setBits(out, outOffset + (long) (b + i) * length, length, code[i]);
+				}
+			}
+
+			Arrays.fill(message, 0L); // the remaining blocks are encoded one by one, from clean working arrays
+		}
+
+		for (; b < to; b++) {
+			BitUtil.copyBits(in, inOffset + (long) b * dimension, message, 0, dimension);
+			encodeBlock(message, code);
+			BitUtil.copyBits(code, 0, out, outOffset + (long) b * length, length);
+		}
+	}
+
+	/**
+	 * Decodes a range of blocks of a buffer on the calling thread, with the given working arrays.
+	 * @param in the code buffer, which is read up to its limit
+	 * @param inOffset the index of the first bit of the coded text in the buffer
+	 * @param out the buffer that receives the plaintext
+	 * @param outOffset the index of the first bit of the plaintext in the buffer
+	 * @param from the index of the first block
+	 * @param to the index after the last block
+	 * @param checkIfUnique true if the decoding should stop at the first block without a unique closest codeword
+	 * @param code the working array of a code block
+	 * @param message the working array of a plain text block
+	 * @return false if checkIfUnique is true and a block was uncorrectable
+	 */
+	boolean decodeRange(ByteBuffer in, long inOffset, ByteBuffer out, long outOffset, int from, int to,
+			boolean checkIfUnique, long[] code, long[] message) {
+		if (checkIfUnique && !correctsErrors()) {
+			return false; // nothing is written, so the in-place mode leaves the input as it is
+		}
+
+		int dimension = getDimension();
+		int length = getLength();
+		int b = from;
+		int fast = 0; // the blocks of the fast path
+		int slow = 0; // the blocks of the correction path
+		BitSlicer slicer = getSlicer();
+
+		if (slicer != null) {
+			for (; b + BitSlicer.GROUP_SIZE <= to; b += BitSlicer.GROUP_SIZE) {
+				for (int i = 0; i < BitSlicer.GROUP_SIZE; i++) {
+					code[i] = BitUtil.getBits(in, inOffset + (long) (b + i) * length, length);
+				}
+
+				long dirty = slicer.decode(code, message);
+				fast += BitSlicer.GROUP_SIZE - Long.bitCount(dirty);
+				slow += Long.bitCount(dirty);
+
+				// the dirty blocks are decoded before any block of the group is written, so the output may overlap the input
+				for (; dirty != 0L; dirty &= dirty - 1) {
+					int i = Long.numberOfTrailingZeros(dirty);
+					long first = message[0];
+					code[0] = BitUtil.getBits(in, inOffset + (long) (b + i) * length, length);
+
+					if (decodeBlock(code, message) == UNCORRECTABLE && checkIfUnique) {
+						countPaths(fast, slow);
+						return false;
+					}
+
+					long decoded = message[0];
+					message[0] = first;
+					message[i] = decoded;
+				}
+
+				for (int i = 0; i < BitSlicer.GROUP_SIZE; i++) {
+					BitUtil.setBits(out, outOffset + (long) (b + i) * dimension, dimension, message[i]);
+				}
+			}
+
+			Arrays.fill(code, 0L); // the remaining blocks are decoded one by one, from clean working arrays
+		}
+
+		for (; b < to; b++) {
+			BitUtil.copyBits(in, inOffset + (long) b * length, code, 0, length);
+
+			if (isCodeword(code)) {
+				extractMessage(code, message);
+				fast++;
+			} else {
+				slow++;
+
+				if (decodeBlock(code, message) == UNCORRECTABLE && checkIfUnique) {
+					countPaths(fast, slow);
+					return false;
+				}
+			}
+			BitUtil.copyBits(message, 0, out, outOffset + (long) b * dimension, dimension);
+		}
+
+		countPaths(fast, slow);
+		return true;
+	}
+
+	/**
+	 * Adds the blocks of a decoded range to the counters of the fast path and of the correction path.
+	 * @param fast the number of blocks with a zero syndrome
+	 * @param slow the number of blocks that went through decodeBlock
+	 */
+	private void countPaths(int fast, int slow) {
+		this.fastPathBlocks.add(fast);
+		this.correctionPathBlocks.add(slow);
+	}
+
+	/**
+	 * Allocates the working array of a plain text block, which holds a group of 64 blocks in the bit-sliced mode.
+	 * @return the array
+	 */
+	long[] newMessage() {
+		return new long[(getSlicer() != null) ? BitSlicer.GROUP_SIZE : BitUtil.numOfWords(getDimension())];
+	}
+
+	/**
+	 * Allocates the working array of a code block, which holds a group of 64 blocks in the bit-sliced mode.
+	 * @return the array
+	 */
+	long[] newCode() {
+		return new long[(getSlicer() != null) ? BitSlicer.GROUP_SIZE : BitUtil.numOfWords(getLength())];
+	}
+
+	/**
+	 * Reads a block of a packed vector, where the bits from the end of the vector are read as zeros.
+	 * @param in the packed vector
+	 * @param offset the index of the first bit of the block
+	 * @param end the index after the last bit of the vector
+	 * @param block the array that receives the block
+	 * @param blockSize the number of bits in the block
+	 */
+	private static void readBlock(long[] in, long offset, long end, long[] block, int blockSize) {
+		long count = Math.min(blockSize, end - offset);
+
+		if (count < blockSize) {
+			Arrays.fill(block, 0L);
+		}
+		BitUtil.copyBits(in, offset, block, 0, count);
+	}
+
+	/**
+	 * Reads up to 64 bits of a packed vector, where the bits from the end of the vector are read as zeros.
+	 * @param in the packed vector
+	 * @param offset the index of the first bit
+	 * @param end the index after the last bit of the vector
+	 * @param count the number of bits
+	 * @return the bits
+	 */
+	private static long readBits(long[] in, long offset, long end, int count) {
+		return BitUtil.getBits(in, offset, (int) Math.max(0L, Math.min(count, end - offset)));
+	}
+
+	/**
+	 * Checks that the code is valid, and counts the blocks that a vector of the given length is padded to.
+	 * Unlike BitUtil.numOfBlocks, an empty vector has no blocks.
+	 * @param len the length of the vector
+	 * @param blockSize the number of bits in each block
+	 * @return the number of blocks
+	 */
+	int countBlocks(long len, int blockSize) {
+		if (getDimension() <= 0) {
+			throw new IllegalStateException("Cannot process with " + this);
+		}
+
+		long numOfBlocks = (len + blockSize - 1) / blockSize;
+
+		if (numOfBlocks > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many blocks: " + numOfBlocks);
+		}
+		return (int) numOfBlocks;
+	}
+
+	/**
+	 * Checks that the buffer has space for the given number of bits,
+	 * and clears the last byte, as the bits after the output are zero padding.
+	 * @param out the output buffer
+	 * @param bits the number of bits of the output
+	 * @return the number of bytes of the output
+	 * @throws BufferOverflowException if the buffer does not have enough space
+	 */
+	static int reserve(ByteBuffer out, long bits) {
+		int bytes = (int) BitUtil.numOfBytes(bits);
+
+		if (out.remaining() < bytes) {
+			throw new BufferOverflowException();
+		}
+		if (bytes > 0) {
+			out.put(out.position() + bytes - 1, (byte) 0);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Checks if the bit index is the first bit of a word, so that the chunks of the parallel mode never share a word.
+	 * @param offset the bit index
+	 * @return true if the index is a multiple of 64
+	 */
+	private static boolean isWordAligned(long offset) {
+		return (offset & (BitUtil.WORD_SIZE - 1)) == 0;
+	}
+
+	/**
+	 * A task that processes a range of blocks.
+	 */
+	@FunctionalInterface
+	interface BlockRange {
+		/**
+		 * Processes the blocks from (inclusive) to (exclusive).
+		 * @param from the index of the first block
+		 * @param to the index after the last block
+		 * @return false to stop processing the remaining blocks
+		 */
+		boolean run(int from, int to);
+	}
+
+	/**
+	 * Runs the task over all blocks, on the calling thread for the short vectors
+	 * and in parallel chunks of CHUNK_BLOCKS blocks for the long vectors.
+	 * @param numOfBlocks the number of blocks
+	 * @param executor the executor for the parallel mode, null to use the common ForkJoinPool,
+	 * 	or SEQUENTIAL to process all blocks on the calling thread
+	 * @param task the task
+	 * @return false if the task stopped on any chunk
+	 */
+	boolean forEachChunk(int numOfBlocks, Executor executor, BlockRange task) {
+		boolean parallel = executor != SEQUENTIAL
+				&& numOfBlocks > CHUNK_BLOCKS
+				&& (long) numOfBlocks * getLength() >= PARALLEL_THRESHOLD
+				&& (executor != null || ForkJoinPool.getCommonPoolParallelism() > 1);
+
+		if (!parallel) {
+			return task.run(0, numOfBlocks);
+		}
+
+		if (executor == null || executor instanceof ForkJoinPool) {
+			ChunkTask root = new ChunkTask(task, 0, numOfBlocks);
+			ForkJoinPool pool = (executor == null) ? ForkJoinPool.commonPool() : (ForkJoinPool) executor;
+			pool.invoke(root);
+			return !root.stopped;
+		}
+
+		AtomicBoolean stopped = new AtomicBoolean();
+		int numOfChunks = (numOfBlocks + CHUNK_BLOCKS - 1) / CHUNK_BLOCKS;
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[numOfChunks];
+
+		for (int i = 0; i < numOfChunks; i++) {
+			int from = i * CHUNK_BLOCKS;
+			int to = Math.min(numOfBlocks, from + CHUNK_BLOCKS);
+
+			futures[i] = CompletableFuture.runAsync(() -> {
+				if (!stopped.get() && !task.run(from, to)) {
+					stopped.set(true);
+				}
+			}, executor);
+		}
+
+		try {
+			CompletableFuture.allOf(futures).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+
+		return !stopped.get();
+	}
+
+	/**
+	 * The fork/join task that splits a range of blocks in halves until it is a single chunk.
+	 */
+	private static final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final BlockRange task;
+		private final int from;
+		private final int to;
+		private final ChunkTask root;
+		private volatile boolean stopped;
+
+		/**
+		 * The constructor for the root task.
+		 * @param task the task to run on each chunk
+		 * @param from the index of the first block
+		 * @param to the index after the last block
+		 */
+		ChunkTask(BlockRange task, int from, int to) {
+			this(task, from, to, null);
+		}
+
+		/**
+		 * The constructor for a sub task.
+		 * @param task the task to run on each chunk
+		 * @param from the index of the first block
+		 * @param to the index after the last block
+		 * @param root the root task, which records if the task stopped
+		 */
+		private ChunkTask(BlockRange task, int from, int to, ChunkTask root) {
+			this.task = task;
+			this.from = from;
+			this.to = to;
+			this.root = (root == null) ? this : root;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.root.stopped) {
+				return;
+			}
+
+			if (this.to - this.from <= CHUNK_BLOCKS) {
+				if (!this.task.run(this.from, this.to)) {
+					this.root.stopped = true;
+				}
+				return;
+			}
+
+			int middle = this.from + Math.max(1, (this.to - this.from) / 2 / CHUNK_BLOCKS) * CHUNK_BLOCKS;
+
+			invokeAll(new ChunkTask(this.task, this.from, middle, this.root),
+					new ChunkTask(this.task, middle, this.to, this.root));
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/**
+ * A binary matrix whose rows are packed into 64-bit words, so that the rows are added with word-level XOR.
+ *
+ * The matrix is a flat long array of rows, where every row is packed into the same number of words
+ * (the bit j of the row i is the bit (j % 64) of the word i * words + j / 64), which is the layout of Gf2Kernel.
+ * The unused bits of the last word of a row are always zero.
+ *
+ * The elimination follows the Method of Four Russians (M4RI): the columns are processed in strips of up to
+ * 8 columns, the pivots of a strip are found with a few row operations, and every other row is then reduced
+ * with a single XOR of a precomputed combination of the pivot rows, instead of one XOR per pivot.
+ *
+ * @author 160021429
+ */
+final class BitMatrix {
+	/**
+	 * The number of columns in a strip of the elimination, which sets the size of the table of combinations.
+	 */
+	private static final int STRIP_SIZE = 8;
+
+	private final int rows;
+	private final int cols;
+	private final int words; // the number of words of a row
+	private final long[] data;
+
+	/**
+	 * The constructor that makes a zero matrix.
+	 * @param rows the number of rows
+	 * @param cols the number of columns
+	 */
+	BitMatrix(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		this.words = BitUtil.numOfWords(cols);
+		this.data = new long[rows * this.words];
+	}
+
+	/**
+	 * Packs a matrix of 0 and 1 values.
+	 * @param matrix the matrix, whose nonzero entries are treated as 1
+	 * @return the packed matrix
+	 */
+	static BitMatrix fromArray(int[][] matrix) {
+		BitMatrix m = new BitMatrix(matrix.length, (matrix.length == 0) ? 0 : matrix[0].length);
+
+		for (int i = 0; i < m.rows; i++) {
+			for (int j = 0; j < m.cols; j++) {
+				if (matrix[i][j] != 0) {
+					m.set(i, j);
+				}
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Unpacks the matrix into a matrix of 0 and 1 values.
+	 * @return the unpacked matrix
+	 */
+	int[][] toArray() {
+		int[][] matrix = new int[this.rows][this.cols];
+
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.cols; j++) {
+				matrix[i][j] = get(i, j) ? 1 : 0;
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * The getter of the number of rows.
+	 * @return the number of rows
+	 */
+	int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * The getter of the number of columns.
+	 * @return the number of columns
+	 */
+	int getColumns() {
+		return this.cols;
+	}
+
+	/**
+	 * The getter of the number of words of a row.
+	 * @return the number of words of a row
+	 */
+	int getWords() {
+		return this.words;
+	}
+
+	/**
+	 * Returns the packed rows, which are shared with the matrix, so that they can be passed to Gf2Kernel.
+	 * @return the flat array of rows
+	 */
+	long[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * Reads an entry.
+	 * @param row the row
+	 * @param col the column
+	 * @return true if the entry is 1
+	 */
+	boolean get(int row, int col) {
+		return (this.data[row * this.words + (col >>> 6)] >>> col & 1L) != 0L;
+	}
+
+	/**
+	 * Sets an entry to 1.
+	 * @param row the row
+	 * @param col the column
+	 */
+	void set(int row, int col) {
+		this.data[row * this.words + (col >>> 6)] |= 1L << col;
+	}
+
+	/**
+	 * Flips an entry.
+	 * @param row the row
+	 * @param col the column
+	 */
+	void flip(int row, int col) {
+		this.data[row * this.words + (col >>> 6)] ^= 1L << col;
+	}
+
+	/**
+	 * Adds the source row to the target row.
+	 * @param target the row that is changed
+	 * @param source the row that is added
+	 */
+	void xorRow(int target, int source) {
+		int t = target * this.words;
+		int s = source * this.words;
+
+		for (int x = 0; x < this.words; x++) {
+			this.data[t + x] ^= this.data[s + x];
+		}
+	}
+
+	/**
+	 * Swaps 2 rows.
+	 * @param i1 index of the first row
+	 * @param i2 index of the second row
+	 */
+	void swapRows(int i1, int i2) {
+		if (i1 == i2) {
+			return;
+		}
+
+		int a = i1 * this.words;
+		int b = i2 * this.words;
+
+		for (int x = 0; x < this.words; x++) {
+			long temp = this.data[a + x];
+			this.data[a + x] = this.data[b + x];
+			this.data[b + x] = temp;
+		}
+	}
+
+	/**
+	 * Swaps 2 columns.
+	 * @param i1 index of the first column
+	 * @param i2 index of the second column
+	 */
+	void swapColumns(int i1, int i2) {
+		if (i1 == i2) {
+			return;
+		}
+
+		for (int i = 0; i < this.rows; i++) {
+			if (get(i, i1) != get(i, i2)) {
+				flip(i, i1);
+				flip(i, i2);
+			}
+		}
+	}
+
+	/**
+	 * Converts the matrix to the reduced row echelon form (the normal form), with the Method of Four Russians.
+	 * @return the rank of the matrix
+	 */
+	int reduce() {
+		int[] pivotCols = new int[STRIP_SIZE];
+		int[] pivotWindows = new int[STRIP_SIZE]; // the strip bits of each pivot row
+		long[] table = new long[(1 << STRIP_SIZE) * this.words];
+		int rank = 0;
+
+		for (int col = 0; col < this.cols && rank < this.rows; col += STRIP_SIZE) {
+			int width = Math.min(STRIP_SIZE, this.cols - col);
+			int found = 0;
+
+			// find the pivots of the strip, keeping the pivot rows reduced against each other
+			for (int c = 0; c < width && rank + found < this.rows; c++) {
+				int pivot = -1;
+
+				for (int i = rank + found; i < this.rows && pivot < 0; i++) {
+					if ((reduceWindow(window(i, col, width), pivotCols, pivotWindows, found) >>> c & 1) != 0) {
+						pivot = i;
+					}
+				}
+				if (pivot < 0) {
+					continue;
+				}
+
+				int row = rank + found;
+				swapRows(pivot, row);
+
+				int w = window(row, col, width);
+				for (int p = 0; p < found; p++) {
+					if ((w >>> pivotCols[p] & 1) != 0) {
+						xorRow(row, rank + p);
+						w ^= pivotWindows[p];
+					}
+				}
+				for (int p = 0; p < found; p++) {
+					if ((pivotWindows[p] >>> c & 1) != 0) {
+						xorRow(rank + p, row);
+						pivotWindows[p] ^= w;
+					}
+				}
+
+				pivotCols[found] = c;
+				pivotWindows[found] = w;
+				found++;
+			}
+
+			if (found == 0) {
+				continue;
+			}
+
+			// the table entry s is the sum of the pivot rows that are selected by the bits of s, built in Gray code order
+			for (int s = 1; s < (1 << found); s++) {
+				int low = Integer.numberOfTrailingZeros(s);
+				int from = (s & (s - 1)) * this.words;
+				int to = s * this.words;
+				int source = (rank + low) * this.words;
+
+				for (int x = 0; x < this.words; x++) {
+					table[to + x] = table[from + x] ^ this.data[source + x];
+				}
+			}
+
+			// clear the pivot columns of every other row with a single row addition
+			for (int i = 0; i < this.rows; i++) {
+				if (i >= rank && i < rank + found) {
+					continue;
+				}
+
+				int w = window(i, col, width);
+				int s = 0;
+				for (int p = 0; p < found; p++) {
+					s |= (w >>> pivotCols[p] & 1) << p;
+				}
+
+				if (s != 0) {
+					int offset = i * this.words;
+					int entry = s * this.words;
+
+					for (int x = 0; x < this.words; x++) {
+						this.data[offset + x] ^= table[entry + x];
+					}
+				}
+			}
+
+			rank += found;
+		}
+
+		return rank;
+	}
+
+	/**
+	 * Reads the bits of a row in a strip of columns.
+	 * @param row the row
+	 * @param col the first column of the strip
+	 * @param width the number of columns of the strip
+	 * @return the bits, where the bit at col becomes the lowest bit
+	 */
+	private int window(int row, int col, int width) {
+		return (int) BitUtil.getBits(this.data, (long) row * this.words * BitUtil.WORD_SIZE + col, width);
+	}
+
+	/**
+	 * Reduces the strip bits of a row with the pivots that were already found in the strip.
+	 * @param w the strip bits of the row
+	 * @param pivotCols the pivot columns, relative to the strip
+	 * @param pivotWindows the strip bits of the pivot rows
+	 * @param found the number of pivots
+	 * @return the reduced strip bits
+	 */
+	private static int reduceWindow(int w, int[] pivotCols, int[] pivotWindows, int found) {
+		for (int p = 0; p < found; p++) {
+			if ((w >>> pivotCols[p] & 1) != 0) {
+				w ^= pivotWindows[p];
+			}
+		}
+		return w;
+	}
+
+	/**
+	 * Transposes the matrix, one tile of 64 by 64 bits at a time.
+	 * @return the transposed matrix
+	 */
+	BitMatrix transpose() {
+		BitMatrix t = new BitMatrix(this.cols, this.rows);
+		long[] tile = new long[BitUtil.WORD_SIZE];
+
+		for (int i = 0; i < this.rows; i += BitUtil.WORD_SIZE) {
+			int height = Math.min(BitUtil.WORD_SIZE, this.rows - i);
+
+			for (int w = 0; w < this.words; w++) {
+				for (int y = 0; y < BitUtil.WORD_SIZE; y++) {
+					tile[y] = (y < height) ? this.data[(i + y) * this.words + w] : 0L;
+				}
+
+				BitUtil.transpose64(tile);
+
+				int width = Math.min(BitUtil.WORD_SIZE, this.cols - (w << 6));
+				for (int y = 0; y < width; y++) {
+					t.data[((w << 6) + y) * t.words + (i >>> 6)] = tile[y];
+				}
+			}
+		}
+
+		return t;
+	}
+
+	/**
+	 * Multiplies the matrix by another matrix, where each row of the product is a sum of the rows of the other matrix.
+	 * @param other the right-hand matrix, which has as many rows as this matrix has columns
+	 * @return the product
+	 */
+	BitMatrix multiply(BitMatrix other) {
+		if (this.cols != other.rows) {
+			throw new IllegalArgumentException("Cannot multiply a " + this.rows + "x" + this.cols
+					+ " matrix by a " + other.rows + "x" + other.cols + " matrix");
+		}
+
+		BitMatrix product = new BitMatrix(this.rows, other.cols);
+		long[] vector = new long[this.words];
+		long[] result = new long[product.words];
+
+		for (int i = 0; i < this.rows; i++) {
+			System.arraycopy(this.data, i * this.words, vector, 0, this.words);
+			Gf2Kernel.INSTANCE.combineRows(vector, other.data, other.rows, other.words, result);
+			System.arraycopy(result, 0, product.data, i * product.words, product.words);
+		}
+
+		return product;
+	}
+}
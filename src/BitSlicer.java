@@ -0,0 +1,157 @@
+/**
+ * The bit-sliced encoder and syndrome checker of a systematic linear code of length 64 or less.
+ *
+ * A group of 64 blocks is transposed, so that each bit position of the blocks becomes one word,
+ * where the bit b of the word is the bit of the block b. Every code bit and every parity check is then
+ * a few XORs of such words, which process the 64 blocks at once, and the result is transposed back.
+ *
+ * The slicer is derived from the block encoder of the code: the generator column of each code bit
+ * is found by encoding the unit vectors, and the parity checks are the code bits that are not message bits,
+ * each compared with the message bits that it is computed from.
+ *
+ * @author 160021429
+ */
+final class BitSlicer {
+	/**
+	 * The number of blocks that are processed at once.
+	 */
+	static final int GROUP_SIZE = BitUtil.WORD_SIZE;
+
+	private final int dimension;
+	private final int length;
+	private final long[] generatorColumns; // generatorColumns[j] selects the message bits that are added up into the code bit j
+	private final int[] messagePositions; // messagePositions[i] is the code bit that holds the message bit i
+	private final long[] parityChecks; // parityChecks[t] selects the code bits whose sum is zero for every codeword
+
+	/**
+	 * The constructor that derives the slicer of a code from its generator columns.
+	 * @param dimension the dimension of the code
+	 * @param length the length of the code
+	 * @param generatorColumns the generator columns
+	 * @param messagePositions the code bit of each message bit
+	 */
+	private BitSlicer(int dimension, int length, long[] generatorColumns, int[] messagePositions) {
+		this.dimension = dimension;
+		this.length = length;
+		this.generatorColumns = generatorColumns;
+		this.messagePositions = messagePositions;
+		this.parityChecks = new long[length - dimension];
+
+		long messageBits = 0L;
+		for (int i = 0; i < dimension; i++) {
+			messageBits |= 1L << messagePositions[i];
+		}
+
+		int t = 0;
+		for (int j = 0; j < length; j++) {
+			if ((messageBits >>> j & 1L) == 0L) {
+				long check = 1L << j;
+
+				for (long bits = generatorColumns[j]; bits != 0L; bits &= bits - 1) {
+					check |= 1L << messagePositions[Long.numberOfTrailingZeros(bits)];
+				}
+				this.parityChecks[t++] = check;
+			}
+		}
+	}
+
+	/**
+	 * Makes the slicer of a code, if the code is short enough and systematic.
+	 * @param code the code, whose encodeBlock method must already work
+	 * @return the slicer, or null if the code cannot be bit-sliced
+	 */
+	static BitSlicer forCode(AbstractBlockCode code) {
+		int dimension = code.getDimension();
+		int length = code.getLength();
+
+		if (dimension <= 0 || length > BitUtil.WORD_SIZE) {
+			return null;
+		}
+
+		long[] generatorColumns = new long[length];
+		long[] message = new long[1];
+		long[] block = new long[1];
+
+		for (int i = 0; i < dimension; i++) {
+			message[0] = 1L << i;
+			code.encodeBlock(message, block);
+
+			for (long bits = block[0]; bits != 0L; bits &= bits - 1) {
+				generatorColumns[Long.numberOfTrailingZeros(bits)] |= 1L << i;
+			}
+		}
+
+		// the code is systematic if every message bit is copied to a code bit
+		int[] messagePositions = new int[dimension];
+		long found = 0L;
+
+		for (int j = 0; j < length; j++) {
+			long column = generatorColumns[j];
+
+			if (Long.bitCount(column) == 1 && (found & column) == 0L) {
+				messagePositions[Long.numberOfTrailingZeros(column)] = j;
+				found |= column;
+			}
+		}
+
+		if (found != BitUtil.lowMask(dimension)) {
+			return null;
+		}
+		return new BitSlicer(dimension, length, generatorColumns, messagePositions);
+	}
+
+	/**
+	 * Encodes a group of 64 blocks.
+	 * @param messages the 64 message blocks, which are overwritten
+	 * @param codes the array of 64 words that receives the code blocks
+	 */
+	void encode(long[] messages, long[] codes) {
+		BitUtil.transpose64(messages);
+
+		for (int j = 0; j < this.length; j++) {
+			long slice = 0L;
+
+			for (long bits = this.generatorColumns[j]; bits != 0L; bits &= bits - 1) {
+				slice ^= messages[Long.numberOfTrailingZeros(bits)];
+			}
+			codes[j] = slice;
+		}
+		for (int j = this.length; j < GROUP_SIZE; j++) {
+			codes[j] = 0L;
+		}
+
+		BitUtil.transpose64(codes);
+	}
+
+	/**
+	 * Checks the syndromes of a group of 64 blocks, and extracts the messages of the blocks whose syndrome is zero.
+	 * @param codes the 64 code blocks, which are overwritten
+	 * @param messages the array of 64 words that receives the message blocks;
+	 * 	the words of the blocks with a nonzero syndrome are undefined
+	 * @return the mask of the blocks with a nonzero syndrome, which have to be decoded one by one
+	 */
+	long decode(long[] codes, long[] messages) {
+		BitUtil.transpose64(codes);
+
+		long dirty = 0L;
+
+		for (long check : this.parityChecks) {
+			long slice = 0L;
+
+			for (long bits = check; bits != 0L; bits &= bits - 1) {
+				slice ^= codes[Long.numberOfTrailingZeros(bits)];
+			}
+			dirty |= slice; // the bit b is set if the parity check fails for the block b
+		}
+
+		for (int i = 0; i < this.dimension; i++) {
+			messages[i] = codes[this.messagePositions[i]];
+		}
+		for (int i = this.dimension; i < GROUP_SIZE; i++) {
+			messages[i] = 0L;
+		}
+
+		BitUtil.transpose64(messages);
+		return dirty;
+	}
+}
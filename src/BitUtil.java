@@ -0,0 +1,310 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * This class contains the helper methods for the word-packed representation of binary vectors.
+ *
+ * A packed vector is a long array where the bit i of the vector is the bit (i % 64) of the word (i / 64),
+ * which is the same layout that is used by BitSet.toLongArray() and BitSet.valueOf(long[]).
+ * Words that are beyond the end of the array are treated as zero words when reading.
+ *
+ * A ByteBuffer holds a packed vector in the same little-endian layout as BitSet.valueOf(ByteBuffer):
+ * the bit i of the vector is the bit (i % 8) of the byte at the index (i / 8), whatever the order of the buffer is.
+ * Bytes that are beyond the limit of the buffer are treated as zero bytes when reading.
+ *
+ * @author 160021429
+ */
+final class BitUtil {
+	static final int WORD_SIZE = 64;
+	private static final int WORD_SHIFT = 6;
+	private static final int WORD_MASK = WORD_SIZE - 1;
+	private static final int BYTE_SHIFT = 3;
+	private static final int BYTE_MASK = Byte.SIZE - 1;
+
+	/**
+	 * The private constructor, as this class only has static methods.
+	 */
+	private BitUtil() {
+	}
+
+	/**
+	 * Calculates the number of 64-bit words that are needed to store the given number of bits.
+	 * @param bits the number of bits
+	 * @return the number of words
+	 */
+	static int numOfWords(long bits) {
+		return (int) ((bits + WORD_MASK) >>> WORD_SHIFT);
+	}
+
+	/**
+	 * Calculates the number of bytes that are needed to store the given number of bits.
+	 * @param bits the number of bits
+	 * @return the number of bytes
+	 */
+	static long numOfBytes(long bits) {
+		return (bits + BYTE_MASK) >>> BYTE_SHIFT;
+	}
+
+	/**
+	 * Calculates the number of blocks that a vector of the given length is padded to.
+	 * A vector which is not longer than a single block is always treated as one block.
+	 * @param len the length of the vector
+	 * @param blockSize the number of bits in each block
+	 * @return the number of blocks
+	 */
+	static int numOfBlocks(int len, int blockSize) {
+		if (len <= blockSize) {
+			return 1;
+		}
+		return (len % blockSize == 0) ? len / blockSize : len / blockSize + 1;
+	}
+
+	/**
+	 * Returns the mask that has the lowest count bits set.
+	 * @param count the number of bits in the mask (0 to 64)
+	 * @return the mask
+	 */
+	static long lowMask(int count) {
+		return (count == WORD_SIZE) ? -1L : (1L << count) - 1;
+	}
+
+	/**
+	 * Reads up to 64 consecutive bits from the packed vector.
+	 * @param words the packed vector
+	 * @param offset the index of the first bit
+	 * @param count the number of bits to read (0 to 64)
+	 * @return the bits, where the bit at offset becomes the lowest bit of the result
+	 */
+	static long getBits(long[] words, long offset, int count) {
+		if (count == 0) {
+			return 0L;
+		}
+
+		int index = (int) (offset >>> WORD_SHIFT);
+		int shift = (int) offset & WORD_MASK;
+
+		long value = (index < words.length) ? words[index] >>> shift : 0L;
+
+		if (shift + count > WORD_SIZE && index + 1 < words.length) {
+			value |= words[index + 1] << (WORD_SIZE - shift);
+		}
+
+		return value & lowMask(count);
+	}
+
+	/**
+	 * Overwrites up to 64 consecutive bits of the packed vector.
+	 * @param words the packed vector, which should be long enough to hold the written bits
+	 * @param offset the index of the first bit
+	 * @param count the number of bits to write (0 to 64)
+	 * @param value the bits to write, where the lowest bit goes to offset
+	 */
+	static void setBits(long[] words, long offset, int count, long value) {
+		if (count == 0) {
+			return;
+		}
+
+		long mask = lowMask(count);
+		value &= mask;
+
+		int index = (int) (offset >>> WORD_SHIFT);
+		int shift = (int) offset & WORD_MASK;
+
+		words[index] = (words[index] & ~(mask << shift)) | (value << shift);
+
+		if (shift + count > WORD_SIZE) {
+			long highMask = lowMask(shift + count - WORD_SIZE);
+			words[index + 1] = (words[index + 1] & ~highMask) | (value >>> (WORD_SIZE - shift));
+		}
+	}
+
+	/**
+	 * Copies a range of bits from one packed vector to another.
+	 * @param src the source vector
+	 * @param srcOffset the index of the first bit in the source vector
+	 * @param dst the destination vector
+	 * @param dstOffset the index of the first bit in the destination vector
+	 * @param count the number of bits to copy
+	 */
+	static void copyBits(long[] src, long srcOffset, long[] dst, long dstOffset, long count) {
+		for (long i = 0; i < count; i += WORD_SIZE) {
+			int n = (int) Math.min(WORD_SIZE, count - i);
+			setBits(dst, dstOffset + i, n, getBits(src, srcOffset + i, n));
+		}
+	}
+
+	/**
+	 * Calculates the parity of the bits that are selected by the mask.
+	 * @param words the packed vector
+	 * @param mask the packed mask, which is not longer than the vector
+	 * @return 1 if an odd number of selected bits are set, otherwise 0
+	 */
+	static int parity(long[] words, long[] mask) {
+		long xor = 0L;
+
+		for (int i = 0; i < mask.length; i++) {
+			xor ^= words[i] & mask[i];
+		}
+
+		return Long.bitCount(xor) & 1;
+	}
+
+	/**
+	 * Reads up to 64 consecutive bits from the packed vector in the buffer.
+	 * @param bytes the buffer
+	 * @param offset the index of the first bit, counted from the start of the buffer (not from its position)
+	 * @param count the number of bits to read (0 to 64)
+	 * @return the bits, where the bit at offset becomes the lowest bit of the result
+	 */
+	static long getBits(ByteBuffer bytes, long offset, int count) {
+		if (count == 0) {
+			return 0L;
+		}
+
+		int index = (int) (offset >>> BYTE_SHIFT);
+		int shift = (int) offset & BYTE_MASK;
+		int limit = bytes.limit();
+		long value = 0L;
+
+		if (index + Long.BYTES <= limit) {
+			value = littleEndian(bytes, bytes.getLong(index)) >>> shift;
+
+			if (shift + count > WORD_SIZE && index + Long.BYTES < limit) {
+				value |= (bytes.get(index + Long.BYTES) & 0xFFL) << (WORD_SIZE - shift);
+			}
+		} else {
+			for (int i = 0; i * Byte.SIZE < shift + count && index + i < limit; i++) {
+				long b = bytes.get(index + i) & 0xFFL;
+				int position = i * Byte.SIZE - shift;
+				value |= (position < 0) ? b >>> -position : b << position;
+			}
+		}
+
+		return value & lowMask(count);
+	}
+
+	/**
+	 * Overwrites up to 64 consecutive bits of the packed vector in the buffer.
+	 * Only the bytes that hold the written bits are accessed,
+	 * so threads can write disjoint byte ranges of the same buffer.
+	 * @param bytes the buffer, which should be long enough to hold the written bits
+	 * @param offset the index of the first bit, counted from the start of the buffer (not from its position)
+	 * @param count the number of bits to write (0 to 64)
+	 * @param value the bits to write, where the lowest bit goes to offset
+	 */
+	static void setBits(ByteBuffer bytes, long offset, int count, long value) {
+		if (count == 0) {
+			return;
+		}
+
+		int index = (int) (offset >>> BYTE_SHIFT);
+		int shift = (int) offset & BYTE_MASK;
+
+		if (shift == 0 && count == WORD_SIZE) {
+			bytes.putLong(index, littleEndian(bytes, value));
+			return;
+		}
+
+		long mask = lowMask(count);
+		value &= mask;
+
+		for (int i = 0; i * Byte.SIZE < shift + count; i++) {
+			int position = i * Byte.SIZE - shift;
+			int byteMask = (int) ((position < 0) ? mask << -position : mask >>> position) & 0xFF;
+			int bits = (int) ((position < 0) ? value << -position : value >>> position) & byteMask;
+
+			if (byteMask != 0xFF) {
+				bits |= bytes.get(index + i) & ~byteMask;
+			}
+			bytes.put(index + i, (byte) bits);
+		}
+	}
+
+	/**
+	 * Copies a range of bits from the buffer to a packed vector.
+	 * @param src the source buffer
+	 * @param srcOffset the index of the first bit in the source buffer
+	 * @param dst the destination vector
+	 * @param dstOffset the index of the first bit in the destination vector
+	 * @param count the number of bits to copy
+	 */
+	static void copyBits(ByteBuffer src, long srcOffset, long[] dst, long dstOffset, long count) {
+		for (long i = 0; i < count; i += WORD_SIZE) {
+			int n = (int) Math.min(WORD_SIZE, count - i);
+			setBits(dst, dstOffset + i, n, getBits(src, srcOffset + i, n));
+		}
+	}
+
+	/**
+	 * Copies a range of bits from a packed vector to the buffer.
+	 * @param src the source vector
+	 * @param srcOffset the index of the first bit in the source vector
+	 * @param dst the destination buffer
+	 * @param dstOffset the index of the first bit in the destination buffer
+	 * @param count the number of bits to copy
+	 */
+	static void copyBits(long[] src, long srcOffset, ByteBuffer dst, long dstOffset, long count) {
+		for (long i = 0; i < count; i += WORD_SIZE) {
+			int n = (int) Math.min(WORD_SIZE, count - i);
+			setBits(dst, dstOffset + i, n, getBits(src, srcOffset + i, n));
+		}
+	}
+
+	/**
+	 * Transposes a 64 x 64 bit matrix in place, so that the bit j of the word i becomes the bit i of the word j.
+	 * The matrix is transposed in 6 rounds that swap the off-diagonal quarters of ever smaller sub-matrices.
+	 * @param matrix the 64 rows of the matrix
+	 */
+	static void transpose64(long[] matrix) {
+		long mask = 0x00000000FFFFFFFFL; // the columns of the lower half of each sub-matrix
+
+		for (int j = WORD_SIZE / 2; j != 0; j >>>= 1, mask ^= mask << j) {
+			for (int k = 0; k < WORD_SIZE; k = ((k | j) + 1) & ~j) {
+				long t = ((matrix[k] >>> j) ^ matrix[k | j]) & mask;
+				matrix[k] ^= t << j;
+				matrix[k | j] ^= t;
+			}
+		}
+	}
+
+	/**
+	 * Transposes a bit matrix of any size from one packed vector to another, one tile of 64 by 64 bits at a time,
+	 * so that the bit j of the row i becomes the bit i of the row j. The rows of a matrix are stored one after another.
+	 * @param src the source vector
+	 * @param srcOffset the index of the first bit of the matrix in the source vector
+	 * @param rows the number of rows of the source matrix
+	 * @param columns the number of columns of the source matrix, which is the number of bits in each row
+	 * @param dst the destination vector, which receives the transposed matrix of columns rows
+	 * @param dstOffset the index of the first bit of the matrix in the destination vector
+	 * @param tile the working array of 64 words
+	 */
+	static void transpose(long[] src, long srcOffset, int rows, int columns, long[] dst, long dstOffset, long[] tile) {
+		for (int i = 0; i < rows; i += WORD_SIZE) {
+			int height = Math.min(WORD_SIZE, rows - i);
+
+			for (int j = 0; j < columns; j += WORD_SIZE) {
+				int width = Math.min(WORD_SIZE, columns - j);
+
+				for (int y = 0; y < WORD_SIZE; y++) {
+					tile[y] = (y < height) ? getBits(src, srcOffset + (long) (i + y) * columns + j, width) : 0L;
+				}
+
+				transpose64(tile);
+
+				for (int x = 0; x < width; x++) {
+					setBits(dst, dstOffset + (long) (j + x) * rows + i, height, tile[x]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts a word between the order of the buffer and the little-endian order (in either direction).
+	 * @param bytes the buffer
+	 * @param word the word
+	 * @return the converted word
+	 */
+	private static long littleEndian(ByteBuffer bytes, long word) {
+		return (bytes.order() == ByteOrder.LITTLE_ENDIAN) ? word : Long.reverseBytes(word);
+	}
+}
@@ -0,0 +1,23 @@
+/**
+ * The encoder and syndrome calculator of a code of length 64 or less, specialized to the matrices of one code.
+ *
+ * The implementations are generated at run time by KernelGenerator as hidden classes, where every parity equation
+ * is unrolled with its mask as a constant, so the JIT compiles each code to straight-line code without loops.
+ *
+ * @author 160021429
+ */
+interface BlockKernel {
+	/**
+	 * Encodes a single block.
+	 * @param message the message bits of the block
+	 * @return the code bits of the block
+	 */
+	long encode(long message);
+
+	/**
+	 * Multiplies the parity check matrix and a block.
+	 * @param code the code bits of the block
+	 * @return the syndrome, where the bit x is the parity of the row x of H and the block
+	 */
+	long syndrome(long code);
+}
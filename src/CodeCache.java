@@ -0,0 +1,122 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The bounded cache of code instances, which is shared by the factories.
+ *
+ * The codes are keyed by their parameters, so a code is only constructed once while it stays in the cache.
+ * When the cache is full, the least recently used code is evicted.
+ * The cache is thread-safe, and a code is constructed outside of the lock so that a slow construction
+ * does not block the lookups of the other codes.
+ *
+ * @author 160021429
+ */
+public class CodeCache {
+	private final int maxSize;
+	private final LinkedHashMap<Object, IECC> codes;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * The constructor makes an empty cache.
+	 * @param maxSize the maximum number of cached codes (0 disables caching)
+	 */
+	public CodeCache(int maxSize) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("The size of the cache should not be negative: " + maxSize);
+		}
+
+		this.maxSize = maxSize;
+		this.codes = new LinkedHashMap<Object, IECC>(16, 0.75f, true) { // iterates in access order
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, IECC> eldest) {
+				return size() > CodeCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached code with the given key, or constructs and caches it if it is not in the cache.
+	 * If two threads construct the same code at the same time, both of them get the instance that was cached first.
+	 * @param key the parameters of the code, which is a string for the codes with a few numeric parameters
+	 * @param constructor the function that constructs the code
+	 * @return the code
+	 */
+	IECC get(Object key, Supplier<IECC> constructor) {
+		IECC code;
+
+		synchronized (this.codes) {
+			code = this.codes.get(key);
+		}
+
+		if (code != null) {
+			this.hits.incrementAndGet();
+			return code;
+		}
+
+		this.misses.incrementAndGet();
+		IECC created = constructor.get();
+
+		synchronized (this.codes) {
+			code = this.codes.putIfAbsent(key, created);
+		}
+
+		return (code != null) ? code : created;
+	}
+
+	/**
+	 * The getter for the maximum size.
+	 * @return the maximum number of cached codes
+	 */
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Returns the number of cached codes.
+	 * @return the number of cached codes
+	 */
+	public int size() {
+		synchronized (this.codes) {
+			return this.codes.size();
+		}
+	}
+
+	/**
+	 * Returns the number of lookups that found the code in the cache.
+	 * @return the number of cache hits
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Returns the number of lookups that had to construct the code.
+	 * @return the number of cache misses
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Removes all codes from the cache. The hit and miss counters are not reset.
+	 */
+	public void clear() {
+		synchronized (this.codes) {
+			this.codes.clear();
+		}
+	}
+
+	/**
+	 * Returns a summary of the cache for the log messages.
+	 * @return the summary of the cache
+	 */
+	@Override
+	public String toString() {
+		return "<Code cache: size(" + size() + "/" + this.maxSize + "), hits(" + getHits() + "), misses(" + getMisses() + ")>";
+	}
+}
@@ -0,0 +1,265 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The session that encodes and decodes with a code on a single thread, reusing its buffers across the calls.
+ *
+ * The session keeps the working arrays of a block and an output sink, which only grows when a longer vector
+ * is processed, so encoding or decoding the same amount of data again does not allocate.
+ * The blocks are processed sequentially on the calling thread, so the parallel mode does not allocate tasks either.
+ * A session must not be used by several threads at the same time; each thread should have its own session.
+ *
+ * The codes that do not extend AbstractBlockCode are processed with the long[] and ByteBuffer methods of IECC,
+ * which might allocate.
+ *
+ * @author 160021429
+ */
+public final class CodeSession {
+	private final IECC code;
+	private final AbstractBlockCode blockCode; // null if the code is not a block code
+	private final long[] message;
+	private final long[] block;
+	private long[] output = new long[0];
+	private long outputLength;
+
+	/**
+	 * The constructor that makes a session for the given code.
+	 * @param code the code
+	 */
+	public CodeSession(IECC code) {
+		if (code.getDimension() <= 0) {
+			throw new IllegalArgumentException("Cannot process with " + code);
+		}
+
+		this.code = code;
+
+		if (code instanceof AbstractBlockCode) {
+			this.blockCode = (AbstractBlockCode) code;
+			this.message = this.blockCode.newMessage();
+			this.block = this.blockCode.newCode();
+		} else {
+			this.blockCode = null;
+			this.message = null;
+			this.block = null;
+		}
+	}
+
+	/**
+	 * The getter for the code.
+	 * @return the code of the session
+	 */
+	public IECC getCode() {
+		return this.code;
+	}
+
+	/**
+	 * Returns the output sink, which holds the output of the last call that wrote to the sink.
+	 * The array is reused by the next call, and the bits from getOutputLength() are unspecified.
+	 * @return the packed output
+	 */
+	public long[] getOutput() {
+		return this.output;
+	}
+
+	/**
+	 * The getter for the number of bits of the output in the sink.
+	 * @return the number of output bits
+	 */
+	public long getOutputLength() {
+		return this.outputLength;
+	}
+
+	/**
+	 * Encodes a range of packed plaintext into the output sink.
+	 * @param plaintext the packed binary input
+	 * @param offset the index of the first bit of the plaintext
+	 * @param len the length of the plaintext
+	 * @return the output sink, which holds getOutputLength() bits of coded text
+	 */
+	public long[] encode(long[] plaintext, long offset, int len) {
+		ensureOutput(len, this.code.getDimension(), this.code.getLength());
+		this.outputLength = encode(plaintext, offset, len, this.output, 0);
+		return this.output;
+	}
+
+	/**
+	 * Decodes a range of packed coded text like decodeAlways(BitSet, int) into the output sink.
+	 * @param codetext the packed binary input
+	 * @param offset the index of the first bit of the coded text
+	 * @param len the length of the coded text
+	 * @return the output sink, which holds getOutputLength() bits of plaintext
+	 */
+	public long[] decodeAlways(long[] codetext, long offset, int len) {
+		ensureOutput(len, this.code.getLength(), this.code.getDimension());
+		this.outputLength = decodeAlways(codetext, offset, len, this.output, 0);
+		return this.output;
+	}
+
+	/**
+	 * Decodes a range of packed coded text like decodeIfUnique(BitSet, int) into the output sink.
+	 * @param codetext the packed binary input
+	 * @param offset the index of the first bit of the coded text
+	 * @param len the length of the coded text
+	 * @return the output sink, which holds getOutputLength() bits of plaintext
+	 * @throws UncorrectableErrorException if there is no uniquely best decoding
+	 */
+	public long[] decodeIfUnique(long[] codetext, long offset, int len) throws UncorrectableErrorException {
+		ensureOutput(len, this.code.getLength(), this.code.getDimension());
+		this.outputLength = decodeIfUnique(codetext, offset, len, this.output, 0);
+		return this.output;
+	}
+
+	/**
+	 * Encodes a range of packed plaintext into the given array, like IECC.encode(long[], long, int, long[], long).
+	 * @param plaintext the packed binary input
+	 * @param offset the index of the first bit of the plaintext
+	 * @param len the length of the plaintext
+	 * @param codetext the packed array that receives the coded text
+	 * @param codeOffset the index of the first bit of the coded text
+	 * @return the number of bits of the coded text
+	 */
+	public long encode(long[] plaintext, long offset, int len, long[] codetext, long codeOffset) {
+		if (this.blockCode == null) {
+			return this.code.encode(plaintext, offset, len, codetext, codeOffset);
+		}
+
+		int numOfBlocks = this.blockCode.countBlocks(len, this.code.getDimension());
+		this.blockCode.encodeRange(plaintext, offset, offset + len, codetext, codeOffset, 0, numOfBlocks,
+				this.message, this.block);
+		return (long) numOfBlocks * this.code.getLength();
+	}
+
+	/**
+	 * Decodes a range of packed coded text into the given array, like IECC.decodeAlways(long[], long, int, long[], long).
+	 * @param codetext the packed binary input
+	 * @param offset the index of the first bit of the coded text
+	 * @param len the length of the coded text
+	 * @param plaintext the packed array that receives the plaintext
+	 * @param plainOffset the index of the first bit of the plaintext
+	 * @return the number of bits of the plaintext
+	 */
+	public long decodeAlways(long[] codetext, long offset, int len, long[] plaintext, long plainOffset) {
+		if (this.blockCode == null) {
+			return this.code.decodeAlways(codetext, offset, len, plaintext, plainOffset);
+		}
+
+		int numOfBlocks = this.blockCode.countBlocks(len, this.code.getLength());
+		this.blockCode.decodeRange(codetext, offset, offset + len, plaintext, plainOffset, 0, numOfBlocks, false,
+				this.block, this.message);
+		return (long) numOfBlocks * this.code.getDimension();
+	}
+
+	/**
+	 * Decodes a range of packed coded text into the given array, like IECC.decodeIfUnique(long[], long, int, long[], long).
+	 * @param codetext the packed binary input
+	 * @param offset the index of the first bit of the coded text
+	 * @param len the length of the coded text
+	 * @param plaintext the packed array that receives the plaintext
+	 * @param plainOffset the index of the first bit of the plaintext
+	 * @return the number of bits of the plaintext
+	 * @throws UncorrectableErrorException if there is no uniquely best decoding
+	 */
+	public long decodeIfUnique(long[] codetext, long offset, int len, long[] plaintext, long plainOffset)
+			throws UncorrectableErrorException {
+		if (this.blockCode == null) {
+			return this.code.decodeIfUnique(codetext, offset, len, plaintext, plainOffset);
+		}
+
+		int numOfBlocks = this.blockCode.countBlocks(len, this.code.getLength());
+		if (!this.blockCode.decodeRange(codetext, offset, offset + len, plaintext, plainOffset, 0, numOfBlocks, true,
+				this.block, this.message)) {
+			throw new UncorrectableErrorException();
+		}
+		return (long) numOfBlocks * this.code.getDimension();
+	}
+
+	/**
+	 * Encodes the remaining bytes of the plaintext buffer into the code buffer, like IECC.encode(ByteBuffer, ByteBuffer).
+	 * @param plaintext the binary input
+	 * @param codetext the buffer that receives the coded text
+	 */
+	public void encode(ByteBuffer plaintext, ByteBuffer codetext) {
+		if (this.blockCode == null) {
+			this.code.encode(plaintext, codetext);
+			return;
+		}
+
+		int numOfBlocks = this.blockCode.countBlocks((long) plaintext.remaining() * Byte.SIZE, this.code.getDimension());
+		int codeBytes = AbstractBlockCode.reserve(codetext, (long) numOfBlocks * this.code.getLength());
+
+		this.blockCode.encodeRange(plaintext, (long) plaintext.position() * Byte.SIZE,
+				codetext, (long) codetext.position() * Byte.SIZE, 0, numOfBlocks, this.message, this.block);
+
+		plaintext.position(plaintext.limit());
+		codetext.position(codetext.position() + codeBytes);
+	}
+
+	/**
+	 * Decodes the remaining bytes of the code buffer into the plaintext buffer,
+	 * like IECC.decodeAlways(ByteBuffer, ByteBuffer).
+	 * @param codetext the binary input
+	 * @param plaintext the buffer that receives the plaintext
+	 */
+	public void decodeAlways(ByteBuffer codetext, ByteBuffer plaintext) {
+		if (this.blockCode == null) {
+			this.code.decodeAlways(codetext, plaintext);
+			return;
+		}
+
+		decode(codetext, plaintext, false);
+	}
+
+	/**
+	 * Decodes the remaining bytes of the code buffer into the plaintext buffer,
+	 * like IECC.decodeIfUnique(ByteBuffer, ByteBuffer).
+	 * @param codetext the binary input
+	 * @param plaintext the buffer that receives the plaintext
+	 * @throws UncorrectableErrorException if there is no uniquely best decoding, in which case the positions are not changed
+	 */
+	public void decodeIfUnique(ByteBuffer codetext, ByteBuffer plaintext) throws UncorrectableErrorException {
+		if (this.blockCode == null) {
+			this.code.decodeIfUnique(codetext, plaintext);
+			return;
+		}
+
+		if (!decode(codetext, plaintext, true)) {
+			throw new UncorrectableErrorException();
+		}
+	}
+
+	/**
+	 * Decodes the remaining bytes of the code buffer into the plaintext buffer with the block code.
+	 * @param codetext the binary input
+	 * @param plaintext the buffer that receives the plaintext
+	 * @param checkIfUnique true if the decoding should stop at the first block without a unique closest codeword
+	 * @return false if checkIfUnique is true and a block was uncorrectable, in which case the positions are not changed
+	 */
+	private boolean decode(ByteBuffer codetext, ByteBuffer plaintext, boolean checkIfUnique) {
+		int numOfBlocks = this.blockCode.countBlocks((long) codetext.remaining() * Byte.SIZE, this.code.getLength());
+		int plainBytes = AbstractBlockCode.reserve(plaintext, (long) numOfBlocks * this.code.getDimension());
+
+		if (!this.blockCode.decodeRange(codetext, (long) codetext.position() * Byte.SIZE,
+				plaintext, (long) plaintext.position() * Byte.SIZE, 0, numOfBlocks, checkIfUnique, this.block, this.message)) {
+			return false;
+		}
+
+		codetext.position(codetext.limit());
+		plaintext.position(plaintext.position() + plainBytes);
+		return true;
+	}
+
+	/**
+	 * Grows the output sink, if it is too small for the output of a vector of the given length.
+	 * @param len the length of the input vector
+	 * @param inBlockSize the number of input bits in each block
+	 * @param outBlockSize the number of output bits in each block
+	 */
+	private void ensureOutput(int len, int inBlockSize, int outBlockSize) {
+		long blocks = ((long) len + inBlockSize - 1) / inBlockSize;
+		int words = BitUtil.numOfWords(blocks * outBlockSize);
+
+		if (this.output.length < words) {
+			this.output = Arrays.copyOf(this.output, Math.max(words, this.output.length * 2));
+		}
+	}
+}
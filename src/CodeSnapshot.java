@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * The binary snapshot files of the precomputed tables of the Reed Muller codes, which let a new JVM
+ * load the tables instead of building them again.
+ *
+ * A snapshot is little-endian and has a header of 12 ints: the magic number "ECCS", the format version,
+ * the kind of the code (1 for Reed Muller), k, r, the length, the dimension, the flags (bit 0 is set if the file
+ * has a syndrome table), and the number of words of the generator matrix, the parity check matrix, the coset leaders,
+ * and the ambiguous bitmap. The header is followed by these arrays of longs, then by the columns as ints,
+ * and the file ends with the CRC-32C of all the bytes before it.
+ *
+ * A snapshot is read through a read-only memory mapping, and it is rejected with an IOException if its version,
+ * parameters, sizes, or checksum do not match, so a stale or damaged file is never used.
+ * A snapshot is written to a temporary file that is then moved over the old file, so readers never see a partial file.
+ *
+ * @author 160021429
+ */
+final class CodeSnapshot {
+	/**
+	 * The version of the format, which is increased whenever the layout or the meaning of the tables changes.
+	 */
+	static final int VERSION = 2; // 2: the smallest error vector is the leader of an ambiguous syndrome
+
+	private static final int MAGIC = 0x53434345; // "ECCS" in little-endian order
+	private static final int KIND_REED_MULLER = 1;
+	private static final int FLAG_SYNDROME_TABLE = 1;
+	private static final int HEADER_SIZE = 12 * Integer.BYTES;
+
+	/**
+	 * The private constructor, as this class only has static methods.
+	 */
+	private CodeSnapshot() {
+	}
+
+	/**
+	 * Returns the name of the snapshot file of a code.
+	 * @param k the value k for RM(k, r)
+	 * @param r the value r for RM(k, r)
+	 * @return the file name
+	 */
+	static String fileName(int k, int r) {
+		return "rm-" + k + "-" + r + ".ecc";
+	}
+
+	/**
+	 * Writes the tables of a code to a snapshot file.
+	 * @param file the snapshot file, whose directory is created if it does not exist
+	 * @param tables the tables of the code
+	 * @throws IOException if the file cannot be written
+	 */
+	static void write(Path file, ReedMullerTables tables) throws IOException {
+		long[] leaders = (tables.syndrome == null) ? new long[0] : tables.syndrome.getLeaders();
+		long[] ambiguous = (tables.syndrome == null) ? new long[0] : tables.syndrome.getAmbiguous();
+		long longs = (long) tables.generator.length + tables.parityChecks.length + leaders.length + ambiguous.length;
+		long size = HEADER_SIZE + longs * Long.BYTES + (long) tables.columns.length * Integer.BYTES + Integer.BYTES;
+
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("The tables of RM(" + tables.k + "," + tables.r + ") are too large for a snapshot");
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(KIND_REED_MULLER);
+		buffer.putInt(tables.k).putInt(tables.r).putInt(tables.length).putInt(tables.dimension);
+		buffer.putInt((tables.syndrome == null) ? 0 : FLAG_SYNDROME_TABLE);
+		buffer.putInt(tables.generator.length).putInt(tables.parityChecks.length);
+		buffer.putInt(leaders.length).putInt(ambiguous.length);
+
+		buffer.asLongBuffer().put(tables.generator).put(tables.parityChecks).put(leaders).put(ambiguous);
+		buffer.position((int) (HEADER_SIZE + longs * Long.BYTES));
+		buffer.asIntBuffer().put(tables.columns);
+		buffer.position(buffer.limit() - Integer.BYTES);
+
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue());
+
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+
+		Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			Files.write(temp, buffer.array());
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Reads the tables of a code from a snapshot file.
+	 * @param file the snapshot file
+	 * @param k the value k for RM(k, r), which the snapshot must have
+	 * @param r the value r for RM(k, r), which the snapshot must have
+	 * @return the tables
+	 * @throws IOException if the file cannot be read, or if it is not a valid snapshot of RM(k, r)
+	 */
+	static ReedMullerTables read(Path file, int k, int r) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+
+			if (size < HEADER_SIZE + Integer.BYTES || size > Integer.MAX_VALUE) {
+				throw new IOException(file + " is not a snapshot: wrong size " + size);
+			}
+
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			map.order(ByteOrder.LITTLE_ENDIAN);
+
+			int end = (int) size - Integer.BYTES;
+			CRC32C crc = new CRC32C();
+			crc.update(map.slice(0, end));
+
+			if (map.getInt(0) != MAGIC) {
+				throw new IOException(file + " is not a snapshot");
+			}
+			if (map.getInt(4) != VERSION) {
+				throw new IOException(file + " has the version " + map.getInt(4) + " instead of " + VERSION);
+			}
+			if (map.getInt(8) != KIND_REED_MULLER) {
+				throw new IOException(file + " is not a snapshot of a Reed Muller code");
+			}
+			if ((int) crc.getValue() != map.getInt(end)) {
+				throw new IOException(file + " is damaged: the checksum does not match");
+			}
+
+			int length = 1 << k;
+			int dimension = ReedMullerTables.calculateDimension(k, r);
+			int words = BitUtil.numOfWords(length);
+			int checks = length - dimension;
+			boolean hasSyndrome = (map.getInt(28) & FLAG_SYNDROME_TABLE) != 0;
+
+			if (map.getInt(12) != k || map.getInt(16) != r || map.getInt(20) != length
+					|| map.getInt(24) != dimension) {
+				throw new IOException(file + " is not a snapshot of RM(" + k + "," + r + ")");
+			}
+			if (hasSyndrome && (length > BitUtil.WORD_SIZE || checks > SyndromeTable.MAX_SYNDROME_BITS)) {
+				throw new IOException(file + " has a syndrome table that RM(" + k + "," + r + ") cannot use");
+			}
+
+			int[] counts = {map.getInt(32), map.getInt(36), map.getInt(40), map.getInt(44)};
+			int[] expectedCounts = {
+					dimension * words,
+					checks * words,
+					hasSyndrome ? 1 << checks : 0,
+					hasSyndrome ? BitUtil.numOfWords(1L << checks) : 0};
+
+			long longs = 0L;
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] != expectedCounts[i]) {
+					throw new IOException(file + " has tables of the wrong size");
+				}
+				longs += counts[i];
+			}
+			if (HEADER_SIZE + longs * Long.BYTES + (long) length * Integer.BYTES != end) {
+				throw new IOException(file + " has tables of the wrong size");
+			}
+
+			map.position(HEADER_SIZE);
+			long[] generator = new long[counts[0]];
+			long[] parityChecks = new long[counts[1]];
+			long[] leaders = new long[counts[2]];
+			long[] ambiguous = new long[counts[3]];
+			map.asLongBuffer().get(generator).get(parityChecks).get(leaders).get(ambiguous);
+
+			map.position((int) (HEADER_SIZE + longs * Long.BYTES));
+			int[] columns = new int[length];
+			map.asIntBuffer().get(columns);
+
+			for (int column : columns) {
+				if (column < 0 || column >= length) {
+					throw new IOException(file + " has a column out of range: " + column);
+				}
+			}
+
+			SyndromeTable syndrome = hasSyndrome ? new SyndromeTable(leaders, ambiguous) : null;
+			return new ReedMullerTables(k, r, generator, parityChecks, columns, syndrome);
+		}
+	}
+}
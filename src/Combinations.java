@@ -0,0 +1,80 @@
+/**
+ * A cursor over the combinations of k numbers out of 0 to (size - 1), in lexicographic order.
+ *
+ * The combinations are generated one at a time in a single int array, which is reused by every step,
+ * so walking through all n_C_k combinations needs no memory beyond the cursor itself.
+ *
+ * @author 160021429
+ */
+final class Combinations {
+	private final int size;
+	private final int[] positions; // the current combination, in increasing order
+	private boolean started;
+	private boolean done;
+
+	/**
+	 * The constructor of the cursor, which is placed before the first combination.
+	 * @param size the number of numbers to choose from (0 to size - 1)
+	 * @param k the number of numbers in each combination
+	 */
+	Combinations(int size, int k) {
+		this.size = size;
+		this.positions = new int[Math.max(k, 0)];
+		this.done = (k < 0 || k > size);
+	}
+
+	/**
+	 * Moves to the next combination.
+	 * @return true if there is a next combination, or false if all combinations have been visited
+	 */
+	boolean next() {
+		if (this.done) {
+			return false;
+		}
+
+		int k = this.positions.length;
+
+		if (!this.started) {
+			this.started = true;
+
+			for (int i = 0; i < k; i++) {
+				this.positions[i] = i;
+			}
+			return true;
+		}
+
+		// find the rightmost number that can still be increased, and reset the numbers after it
+		int i = k - 1;
+		while (i >= 0 && this.positions[i] == this.size - k + i) {
+			i--;
+		}
+
+		if (i < 0) {
+			this.done = true;
+			return false;
+		}
+
+		this.positions[i]++;
+		for (int j = i + 1; j < k; j++) {
+			this.positions[j] = this.positions[j - 1] + 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a number of the current combination.
+	 * @param index the index of the number in the combination (0 to k - 1)
+	 * @return the number, where the numbers increase with the index
+	 */
+	int get(int index) {
+		return this.positions[index];
+	}
+
+	/**
+	 * Returns the number of numbers in each combination.
+	 * @return k
+	 */
+	int size() {
+		return this.positions.length;
+	}
+}
@@ -0,0 +1,172 @@
+import java.util.BitSet;
+
+/**
+ * The result of decoding a vector of coded text block by block: the decoded plaintext of every block,
+ * and the status of every block, so that the caller can keep the good blocks and retransmit only the failed ones.
+ *
+ * The statuses are packed 2 bits per block into a long array (32 blocks per word), where the block b is at the bits
+ * 2 * (b % 32) and 2 * (b % 32) + 1 of the word b / 32.
+ *
+ * @author 160021429
+ */
+public final class DecodeResult {
+	/**
+	 * The block was a codeword.
+	 */
+	public static final int CLEAN = 0;
+
+	/**
+	 * The block had errors, which were corrected.
+	 */
+	public static final int CORRECTED = 1;
+
+	/**
+	 * The block does not have a unique closest codeword; its plaintext is that of a closest codeword.
+	 */
+	public static final int UNCORRECTABLE = 2;
+
+	private static final int BLOCKS_PER_WORD = BitUtil.WORD_SIZE / 2;
+	private static final long CORRECTED_BITS = 0x5555555555555555L; // the low bit of every status
+	private static final long UNCORRECTABLE_BITS = 0xAAAAAAAAAAAAAAAAL; // the high bit of every status
+
+	private final BitSet plaintext;
+	private final int numOfBlocks;
+	private final long[] statuses;
+
+	/**
+	 * The constructor of the result.
+	 * @param plaintext the decoded plaintext of all blocks
+	 * @param numOfBlocks the number of blocks
+	 * @param statuses the packed statuses of the blocks
+	 */
+	DecodeResult(BitSet plaintext, int numOfBlocks, long[] statuses) {
+		this.plaintext = plaintext;
+		this.numOfBlocks = numOfBlocks;
+		this.statuses = statuses;
+	}
+
+	/**
+	 * Makes the packed array of statuses for the given number of blocks, where every block is CLEAN.
+	 * @param numOfBlocks the number of blocks
+	 * @return the array
+	 */
+	static long[] newStatuses(int numOfBlocks) {
+		return new long[BitUtil.numOfWords(2L * numOfBlocks)];
+	}
+
+	/**
+	 * Records the status of a block in a packed array of statuses, where the block is still CLEAN.
+	 * @param statuses the packed statuses
+	 * @param block the index of the block
+	 * @param status the status of the block
+	 */
+	static void setStatus(long[] statuses, int block, int status) {
+		statuses[block / BLOCKS_PER_WORD] |= (long) status << (2 * (block % BLOCKS_PER_WORD));
+	}
+
+	/**
+	 * The getter of the plaintext.
+	 * @return the decoded plaintext (padded to a whole number of blocks)
+	 */
+	public BitSet getPlaintext() {
+		return this.plaintext;
+	}
+
+	/**
+	 * The getter of the number of blocks.
+	 * @return the number of blocks
+	 */
+	public int getNumOfBlocks() {
+		return this.numOfBlocks;
+	}
+
+	/**
+	 * Returns the status of a block.
+	 * @param block the index of the block
+	 * @return CLEAN, CORRECTED, or UNCORRECTABLE
+	 */
+	public int getStatus(int block) {
+		if (block < 0 || block >= this.numOfBlocks) {
+			throw new IndexOutOfBoundsException("Block " + block + " of " + this.numOfBlocks);
+		}
+		return (int) (this.statuses[block / BLOCKS_PER_WORD] >>> (2 * (block % BLOCKS_PER_WORD))) & 3;
+	}
+
+	/**
+	 * Counts the blocks that had errors which were corrected.
+	 * @return the number of CORRECTED blocks
+	 */
+	public int countCorrected() {
+		int count = 0;
+
+		for (long word : this.statuses) {
+			count += Long.bitCount(word & CORRECTED_BITS);
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the blocks that could not be corrected.
+	 * @return the number of UNCORRECTABLE blocks
+	 */
+	public int countUncorrectable() {
+		int count = 0;
+
+		for (long word : this.statuses) {
+			count += Long.bitCount(word & UNCORRECTABLE_BITS);
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if every block was decoded to its unique closest codeword.
+	 * @return true if no block is UNCORRECTABLE
+	 */
+	public boolean isUnique() {
+		return nextUncorrectable(0) < 0;
+	}
+
+	/**
+	 * Finds the next block that could not be corrected, so that the failed blocks can be visited with
+	 * for (int b = result.nextUncorrectable(0); b >= 0; b = result.nextUncorrectable(b + 1)).
+	 * @param fromBlock the index of the first block to check
+	 * @return the index of the next UNCORRECTABLE block, or -1 if there is none
+	 */
+	public int nextUncorrectable(int fromBlock) {
+		if (fromBlock >= this.numOfBlocks) {
+			return -1;
+		}
+
+		int w = fromBlock / BLOCKS_PER_WORD;
+		long word = this.statuses[w] & UNCORRECTABLE_BITS & (-1L << (2 * (fromBlock % BLOCKS_PER_WORD)));
+
+		while (word == 0L) {
+			if (++w == this.statuses.length) {
+				return -1;
+			}
+			word = this.statuses[w] & UNCORRECTABLE_BITS;
+		}
+		return w * BLOCKS_PER_WORD + Long.numberOfTrailingZeros(word) / 2;
+	}
+
+	/**
+	 * Returns a copy of the packed statuses, for callers that keep or send the status bitmap.
+	 * @return the statuses, 2 bits per block
+	 */
+	public long[] toStatusArray() {
+		return this.statuses.clone();
+	}
+
+	/**
+	 * Returns a summary of the result.
+	 * @return the number of blocks of each status
+	 */
+	@Override
+	public String toString() {
+		int corrected = countCorrected();
+		int uncorrectable = countUncorrectable();
+
+		return "<Decode result: blocks(" + this.numOfBlocks + "), clean(" + (this.numOfBlocks - corrected - uncorrectable)
+				+ "), corrected(" + corrected + "), uncorrectable(" + uncorrectable + ")>";
+	}
+}
@@ -1,8 +1,82 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
 /**
- * The factory that creates the ReedMullerCode instance or the HammingCode instance.
+ * The factory that creates the ReedMullerCode, HammingCode, ExtendedHammingCode, or LinearCode instances.
+ *
+ * The code instances are immutable, so the factory returns shared instances from a cache of codes,
+ * instead of constructing the generator matrix, parity check matrix, and syndrome table for every call.
+ *
+ * A factory with a snapshot directory also keeps the tables of the Reed Muller codes across JVM launches:
+ * the tables are loaded from the snapshot file of the code if there is a valid one (see CodeSnapshot),
+ * and otherwise they are built and written to the directory for the next launch.
+ *
+ * The cached codes are the ones that are used the most, so the Hamming and Reed Muller codes of length 64 or less
+ * that the factory makes also get a generated kernel class with their unrolled parity equations (see KernelGenerator).
  * @author 160021429
  */
 public class ECCFactory implements IECCFactory {
+	/**
+	 * The maximum number of codes in the cache that is shared by the factories.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 32;
+
+	private static final CodeCache SHARED_CACHE = new CodeCache(DEFAULT_CACHE_SIZE);
+
+	private final CodeCache cache;
+	private final Path snapshotDirectory; // the directory of the snapshot files, or null
+
+	/**
+	 * The default constructor, which uses the cache that is shared by all factories.
+	 */
+	public ECCFactory() {
+		this(SHARED_CACHE);
+	}
+
+	/**
+	 * The constructor that makes the factory with its own cache.
+	 * @param maxCachedCodes the maximum number of cached codes (0 disables caching)
+	 */
+	public ECCFactory(int maxCachedCodes) {
+		this(new CodeCache(maxCachedCodes));
+	}
+
+	/**
+	 * The constructor that makes the factory with the given cache.
+	 * @param cache the cache of codes
+	 */
+	public ECCFactory(CodeCache cache) {
+		this(cache, null);
+	}
+
+	/**
+	 * The constructor that makes the factory with the shared cache and a snapshot directory.
+	 * @param snapshotDirectory the directory of the snapshot files, which is created when the first snapshot is written
+	 */
+	public ECCFactory(Path snapshotDirectory) {
+		this(SHARED_CACHE, snapshotDirectory);
+	}
+
+	/**
+	 * The constructor that makes the factory with the given cache and snapshot directory.
+	 * @param cache the cache of codes
+	 * @param snapshotDirectory the directory of the snapshot files, or null to always build the tables
+	 */
+	public ECCFactory(CodeCache cache, Path snapshotDirectory) {
+		this.cache = cache;
+		this.snapshotDirectory = snapshotDirectory;
+	}
+
+	/**
+	 * The getter for the cache, which exposes the hit and miss counters.
+	 * @return the cache of codes
+	 */
+	public CodeCache getCache() {
+		return this.cache;
+	}
 
 	/**
 	 * This method makes the HammingCode instance.
@@ -11,19 +85,157 @@ public class ECCFactory implements IECCFactory {
 	 */
 	@Override
 	public IECC makeHammingCode(int r) {
-		IECC hammingCode = new HammingCode(r);
+		IECC hammingCode = cache.get("Hamming(" + r + ")", () -> new HammingCode(r, true));
 		return hammingCode;
 	}
+	/**
+	 * This method makes the ExtendedHammingCode instance, which corrects single errors and detects double errors.
+	 * @param dataBits the number of data bits of a block, which is 64 for (72,64) and 32 for (39,32)
+	 * @return the ExtendedHammingCode instance
+	 * @throws IllegalArgumentException if the number of data bits is out of range
+	 */
+	@Override
+	public IECC makeExtendedHammingCode(int dataBits) {
+		IECC extendedHammingCode = cache.get("ExtendedHamming(" + dataBits + ")", () -> new ExtendedHammingCode(dataBits));
+		return extendedHammingCode;
+	}
+
 	/**
 	 * This method makes the ReedMullerCode instance.
+	 * The syndrome table is used for the short codes, and the majority-logic decoder is used for the codes whose
+	 * syndrome table would be too large.
 	 * @param k for ReedMullerCode(k, r)
 	 * @param r for ReedMullerCode(k, r)
 	 * @return the ReedMullerCode instance
 	 */
 	@Override
 	public IECC makeReedMullerCode(int k, int r) {
-		IECC reedMullerCode = new ReedMullerCode(k, r);
+		IECC reedMullerCode = cache.get("RM(" + k + "," + r + ")", () -> loadReedMullerCode(k, r));
 		return reedMullerCode;
 	}
 
+	/**
+	 * This method makes the LinearCode instance, which is cached by the contents of the matrix.
+	 * The key holds the packed matrix, so a lookup costs one bit per entry of the matrix instead of a string of it.
+	 * @param matrix the generator matrix or the parity check matrix
+	 * @param isParityCheck true if the matrix is a parity check matrix
+	 * @return the LinearCode instance
+	 * @throws IllegalArgumentException if the matrix does not describe a code
+	 */
+	@Override
+	public IECC makeLinearCode(int[][] matrix, boolean isParityCheck) {
+		Supplier<IECC> constructor =
+				() -> isParityCheck ? LinearCode.fromParityCheck(matrix) : LinearCode.fromGenerator(matrix);
+		MatrixKey key = MatrixKey.of(matrix, isParityCheck);
+
+		if (key == null) {
+			return constructor.get(); //the matrix is empty or not rectangular, which the constructor rejects
+		}
+		IECC linearCode = cache.get(key, constructor);
+		return linearCode;
+	}
+
+	/**
+	 * This method makes the ReedMullerCode instance from its snapshot file, or builds it and writes the snapshot file.
+	 * A snapshot that cannot be read or written only costs the time of building the tables, so the errors are not thrown.
+	 * @param k for ReedMullerCode(k, r)
+	 * @param r for ReedMullerCode(k, r)
+	 * @return the ReedMullerCode instance
+	 */
+	private ReedMullerCode loadReedMullerCode(int k, int r) {
+		if (!(k >= r && r >= 0)) {
+			return new ReedMullerCode(k, r);
+		}
+		if (this.snapshotDirectory == null) {
+			return new ReedMullerCode(ReedMullerTables.build(k, r, false), true);
+		}
+
+		Path file = this.snapshotDirectory.resolve(CodeSnapshot.fileName(k, r));
+
+		if (Files.isRegularFile(file)) {
+			try {
+				return new ReedMullerCode(CodeSnapshot.read(file, k, r), true);
+			} catch (IOException e) {
+				// the snapshot is stale or damaged, so it is built again and replaced
+			}
+		}
+
+		ReedMullerTables tables = ReedMullerTables.build(k, r, false);
+
+		try {
+			CodeSnapshot.write(file, tables);
+		} catch (IOException e) {
+			// the directory is not writable, so the next launch builds the tables again
+		}
+		return new ReedMullerCode(tables, true);
+	}
+
+	/**
+	 * The cache key of a linear code, which is its matrix packed row after row, as every nonzero entry is a 1.
+	 */
+	private static final class MatrixKey {
+		private final boolean isParityCheck;
+		private final int rows;
+		private final int columns;
+		private final long[] bits; // the entry (i, j) is the bit i * columns + j
+		private final int hash;
+
+		/**
+		 * The constructor of the key.
+		 * @param isParityCheck true if the matrix is a parity check matrix
+		 * @param rows the number of rows
+		 * @param columns the number of columns
+		 * @param bits the packed entries
+		 */
+		private MatrixKey(boolean isParityCheck, int rows, int columns, long[] bits) {
+			this.isParityCheck = isParityCheck;
+			this.rows = rows;
+			this.columns = columns;
+			this.bits = bits;
+			this.hash = ((Boolean.hashCode(isParityCheck) * 31 + rows) * 31 + columns) * 31 + Arrays.hashCode(bits);
+		}
+
+		/**
+		 * Packs a matrix into a key.
+		 * @param matrix the matrix
+		 * @param isParityCheck true if the matrix is a parity check matrix
+		 * @return the key, or null if the matrix is empty or not rectangular
+		 */
+		static MatrixKey of(int[][] matrix, boolean isParityCheck) {
+			if (matrix == null || matrix.length == 0 || matrix[0] == null) {
+				return null;
+			}
+
+			int columns = matrix[0].length;
+			long[] bits = new long[BitUtil.numOfWords((long) matrix.length * columns)];
+
+			for (int i = 0; i < matrix.length; i++) {
+				if (matrix[i] == null || matrix[i].length != columns) {
+					return null;
+				}
+				for (int j = 0; j < columns; j++) {
+					if (matrix[i][j] != 0) {
+						long bit = (long) i * columns + j;
+						bits[(int) (bit >>> 6)] |= 1L << bit;
+					}
+				}
+			}
+			return new MatrixKey(isParityCheck, matrix.length, columns, bits);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof MatrixKey)) {
+				return false;
+			}
+			MatrixKey other = (MatrixKey) o;
+			return this.isParityCheck == other.isParityCheck && this.rows == other.rows && this.columns == other.columns
+					&& Arrays.equals(this.bits, other.bits);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
 }
@@ -0,0 +1,51 @@
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The factory methods for the channels that encode or decode with an error correcting code.
+ * The channels use the same format as EccOutputStream and EccInputStream.
+ *
+ * @author 160021429
+ */
+public final class EccChannels {
+
+	/**
+	 * The private constructor, as this class only has static methods.
+	 */
+	private EccChannels() {
+	}
+
+	/**
+	 * Makes the channel that encodes the written bytes and writes the coded text to the target channel.
+	 * The channel should be closed to write the padded last unit; closing it also closes the target channel.
+	 * @param target the channel that receives the coded text
+	 * @param code the code
+	 * @return the encoding channel
+	 */
+	public static WritableByteChannel newEncodingChannel(WritableByteChannel target, IECC code) {
+		return Channels.newChannel(new EccOutputStream(Channels.newOutputStream(target), code));
+	}
+
+	/**
+	 * Makes the channel that reads the coded text from the source channel and returns the decoded bytes.
+	 * The blocks are decoded with decodeAlways.
+	 * @param source the channel of coded text
+	 * @param code the code
+	 * @return the decoding channel
+	 */
+	public static ReadableByteChannel newDecodingChannel(ReadableByteChannel source, IECC code) {
+		return newDecodingChannel(source, code, false);
+	}
+
+	/**
+	 * Makes the channel that reads the coded text from the source channel and returns the decoded bytes.
+	 * @param source the channel of coded text
+	 * @param code the code
+	 * @param checkIfUnique true to decode with decodeIfUnique, so that an uncorrectable block fails the read
+	 * @return the decoding channel
+	 */
+	public static ReadableByteChannel newDecodingChannel(ReadableByteChannel source, IECC code, boolean checkIfUnique) {
+		return Channels.newChannel(new EccInputStream(Channels.newInputStream(source), code, checkIfUnique));
+	}
+}
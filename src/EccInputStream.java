@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The input stream that decodes the coded text that was written by EccOutputStream.
+ *
+ * The coded text is read and decoded in units of 8 blocks (getLength() code bytes and getDimension() plain text bytes),
+ * with a fixed size buffer. The plain text of the last unit is held back until the end of the coded text is reached,
+ * so that the padding can be removed.
+ *
+ * @author 160021429
+ */
+public class EccInputStream extends InputStream {
+	private final InputStream in;
+	private final IECC code;
+	private final boolean checkIfUnique;
+	private final int unitSize; // the number of plain text bytes in a unit of 8 blocks
+	private final int codeUnitSize; // the number of code bytes in a unit of 8 blocks
+	private final byte[] codeBuffer;
+	private final byte[] buffer; // the decoded plain text, with room for the held back unit
+	private final ByteBuffer codeView; // the view of the code buffer that is passed to the code
+	private final ByteBuffer plainView; // the view of the buffer that is passed to the code
+	private int position; // the index of the next byte to return
+	private int available; // the index after the last byte that can be returned
+	private int limit; // the index after the last decoded byte (including the held back unit)
+	private boolean eof;
+	private boolean closed;
+
+	/**
+	 * The constructor that decodes with decodeAlways.
+	 * @param in the stream of coded text
+	 * @param code the code
+	 */
+	public EccInputStream(InputStream in, IECC code) {
+		this(in, code, false);
+	}
+
+	/**
+	 * The constructor that wraps the given stream.
+	 * @param in the stream of coded text
+	 * @param code the code
+	 * @param checkIfUnique true to decode with decodeIfUnique, so that a block without a unique closest codeword
+	 * 	fails the read with an IOException that is caused by UncorrectableErrorException
+	 */
+	public EccInputStream(InputStream in, IECC code, boolean checkIfUnique) {
+		if (code.getDimension() <= 0) {
+			throw new IllegalArgumentException("Cannot decode with " + code);
+		}
+
+		this.in = in;
+		this.code = code;
+		this.checkIfUnique = checkIfUnique;
+		this.unitSize = code.getDimension();
+		this.codeUnitSize = code.getLength();
+
+		int units = Math.max(1, EccOutputStream.CHUNK_SIZE / this.unitSize);
+		this.codeBuffer = new byte[units * this.codeUnitSize];
+		this.buffer = new byte[(units + 1) * this.unitSize];
+		this.codeView = ByteBuffer.wrap(this.codeBuffer);
+		this.plainView = ByteBuffer.wrap(this.buffer);
+	}
+
+	/**
+	 * Reads a single byte.
+	 * @return the byte, or -1 at the end of the stream
+	 * @throws IOException if the underlying stream fails or the coded text is corrupt
+	 */
+	@Override
+	public int read() throws IOException {
+		ensureOpen();
+
+		if (this.position == this.available && !fill()) {
+			return -1;
+		}
+		return this.buffer[this.position++] & 0xFF;
+	}
+
+	/**
+	 * Reads a range of bytes.
+	 * @param b the array that receives the bytes
+	 * @param off the index of the first byte
+	 * @param len the maximum number of bytes
+	 * @return the number of bytes that were read, or -1 at the end of the stream
+	 * @throws IOException if the underlying stream fails or the coded text is corrupt
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+
+		if (this.position == this.available && !fill()) {
+			return -1;
+		}
+
+		int n = Math.min(len, this.available - this.position);
+		System.arraycopy(this.buffer, this.position, b, off, n);
+		this.position += n;
+
+		return n;
+	}
+
+	/**
+	 * Returns the number of decoded bytes that can be read without blocking.
+	 * @return the number of bytes
+	 * @throws IOException if the stream is closed
+	 */
+	@Override
+	public int available() throws IOException {
+		ensureOpen();
+
+		return this.available - this.position;
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 * @throws IOException if the underlying stream fails
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!this.closed) {
+			this.closed = true;
+			this.in.close();
+		}
+	}
+
+	/**
+	 * Reads and decodes the next chunk of units.
+	 * @return false if there are no more bytes
+	 * @throws IOException if the underlying stream fails or the coded text is corrupt
+	 */
+	private boolean fill() throws IOException {
+		while (this.position == this.available) {
+			if (this.eof) {
+				return false;
+			}
+
+			// move the held back unit to the start of the buffer
+			int held = this.limit - this.available;
+			System.arraycopy(this.buffer, this.available, this.buffer, 0, held);
+			this.position = 0;
+			this.limit = held;
+
+			int read = readFully();
+
+			if (read < this.codeBuffer.length) {
+				this.eof = true;
+			}
+			if (read % this.codeUnitSize != 0) {
+				throw new IOException("The coded text ends in the middle of a block");
+			}
+
+			if (read > 0) {
+				decodeUnits(read);
+			}
+
+			if (this.eof) {
+				this.available = removePadding();
+			} else {
+				this.available = this.limit - this.unitSize; // the last unit might be the padded one
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Reads from the underlying stream until the code buffer is full or the stream ends.
+	 * @return the number of bytes that were read
+	 * @throws IOException if the underlying stream fails
+	 */
+	private int readFully() throws IOException {
+		int read = 0;
+
+		while (read < this.codeBuffer.length) {
+			int n = this.in.read(this.codeBuffer, read, this.codeBuffer.length - read);
+
+			if (n < 0) {
+				break;
+			}
+			read += n;
+		}
+
+		return read;
+	}
+
+	/**
+	 * Decodes the given number of code bytes, and appends the plain text to the buffer.
+	 * @param bytes the number of code bytes (a whole number of units)
+	 * @throws IOException if a block does not have a unique closest codeword and checkIfUnique is true
+	 */
+	private void decodeUnits(int bytes) throws IOException {
+		int plainBytes = bytes / this.codeUnitSize * this.unitSize;
+
+		this.codeView.clear().limit(bytes);
+		this.plainView.clear().position(this.limit);
+
+		if (this.checkIfUnique) {
+			try {
+				this.code.decodeIfUnique(this.codeView, this.plainView);
+			} catch (UncorrectableErrorException e) {
+				throw new IOException("The coded text has an uncorrectable block", e);
+			}
+		} else {
+			this.code.decodeAlways(this.codeView, this.plainView);
+		}
+
+		this.limit += plainBytes;
+	}
+
+	/**
+	 * Finds the padding at the end of the decoded plain text.
+	 * @return the index of the padding marker
+	 * @throws IOException if the padding is missing or corrupt
+	 */
+	private int removePadding() throws IOException {
+		int index = this.limit - 1;
+
+		while (index >= 0 && index >= this.limit - this.unitSize && this.buffer[index] == 0) {
+			index--;
+		}
+
+		if (index < 0 || index < this.limit - this.unitSize || (this.buffer[index] & 0xFF) != EccOutputStream.PADDING_MARKER) {
+			throw new IOException("The coded text does not end with a valid padding");
+		}
+
+		return index;
+	}
+
+	/**
+	 * Checks that the stream is not closed.
+	 * @throws IOException if the stream is closed
+	 */
+	private void ensureOpen() throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+}
@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The output stream that encodes the written bytes with an error correcting code.
+ *
+ * The bytes are encoded in units of 8 blocks, which are getDimension() plain text bytes and getLength() code bytes,
+ * so every unit starts on a byte boundary of both the plain text and the coded text.
+ * The stream only buffers a fixed number of units, so the memory use does not depend on the length of the data.
+ *
+ * When the stream is closed, the plain text is padded to a whole unit with a 0x80 byte followed by zero bytes,
+ * which EccInputStream removes again. The padding is always added, so the length of the data is recovered exactly.
+ *
+ * @author 160021429
+ */
+public class EccOutputStream extends OutputStream {
+	/**
+	 * The approximate number of plain text bytes that are encoded at once.
+	 */
+	static final int CHUNK_SIZE = 8192;
+
+	/**
+	 * The first byte of the padding.
+	 */
+	static final int PADDING_MARKER = 0x80;
+
+	private final OutputStream out;
+	private final IECC code;
+	private final int unitSize; // the number of plain text bytes in a unit of 8 blocks
+	private final byte[] buffer;
+	private final byte[] codeBuffer;
+	private final ByteBuffer plainView; // the view of the buffer that is passed to the code
+	private final ByteBuffer codeView; // the view of the code buffer that is passed to the code
+	private int count; // the number of buffered plain text bytes
+	private boolean closed;
+
+	/**
+	 * The constructor that wraps the given stream.
+	 * @param out the stream that receives the coded text
+	 * @param code the code
+	 */
+	public EccOutputStream(OutputStream out, IECC code) {
+		if (code.getDimension() <= 0) {
+			throw new IllegalArgumentException("Cannot encode with " + code);
+		}
+
+		this.out = out;
+		this.code = code;
+		this.unitSize = code.getDimension();
+		this.buffer = new byte[Math.max(1, CHUNK_SIZE / this.unitSize) * this.unitSize];
+		this.codeBuffer = new byte[this.buffer.length / this.unitSize * code.getLength()];
+		this.plainView = ByteBuffer.wrap(this.buffer);
+		this.codeView = ByteBuffer.wrap(this.codeBuffer);
+	}
+
+	/**
+	 * Writes a single byte.
+	 * @param b the byte
+	 * @throws IOException if the underlying stream fails
+	 */
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+
+		this.buffer[this.count++] = (byte) b;
+
+		if (this.count == this.buffer.length) {
+			encodeUnits();
+		}
+	}
+
+	/**
+	 * Writes a range of bytes.
+	 * @param b the bytes
+	 * @param off the index of the first byte
+	 * @param len the number of bytes
+	 * @throws IOException if the underlying stream fails
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		while (len > 0) {
+			int n = Math.min(len, this.buffer.length - this.count);
+
+			System.arraycopy(b, off, this.buffer, this.count, n);
+			this.count += n;
+			off += n;
+			len -= n;
+
+			if (this.count == this.buffer.length) {
+				encodeUnits();
+			}
+		}
+	}
+
+	/**
+	 * Encodes all whole units that are buffered, and flushes the underlying stream.
+	 * The bytes of an incomplete unit stay in the buffer until the unit is complete or the stream is closed.
+	 * @throws IOException if the underlying stream fails
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+
+		encodeUnits();
+		this.out.flush();
+	}
+
+	/**
+	 * Pads and encodes the last unit, and closes the underlying stream.
+	 * @throws IOException if the underlying stream fails
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+
+		try {
+			this.buffer[this.count++] = (byte) PADDING_MARKER; // the buffer is never full between the calls
+
+			while (this.count % this.unitSize != 0) {
+				this.buffer[this.count++] = 0;
+			}
+
+			encodeUnits();
+		} finally {
+			this.closed = true;
+			this.out.close();
+		}
+	}
+
+	/**
+	 * Encodes the whole units at the start of the buffer, and moves the remaining bytes to the start.
+	 * @throws IOException if the underlying stream fails
+	 */
+	private void encodeUnits() throws IOException {
+		int bytes = this.count - this.count % this.unitSize;
+
+		if (bytes == 0) {
+			return;
+		}
+
+		int codeBytes = bytes / this.unitSize * this.code.getLength();
+
+		this.plainView.clear().limit(bytes);
+		this.codeView.clear();
+		this.code.encode(this.plainView, this.codeView);
+
+		this.out.write(this.codeBuffer, 0, codeBytes);
+
+		this.count -= bytes;
+		System.arraycopy(this.buffer, bytes, this.buffer, 0, this.count);
+	}
+
+	/**
+	 * Checks that the stream is not closed.
+	 * @throws IOException if the stream is closed
+	 */
+	private void ensureOpen() throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+}
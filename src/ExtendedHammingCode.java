@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * The class for the extended (shortened) hamming code with single error correction and double error detection
+ * (SECDED), like the (72,64) and (39,32) codes of the ECC memories.
+ *
+ * A block holds the data word in its first bits, followed by r hamming check bits and the overall parity bit,
+ * where r is the smallest number with 2^r >= dataBits + r + 1. The 64 data bits of a (72,64) block are one word,
+ * and the check byte is in the next word; the 32 data bits of a (39,32) block are the low half of a word.
+ * So encoding is a parity per check bit over the data word, and decoding reads the data word straight out.
+ *
+ * The data bit i is covered by the check bits of the (i + 1)th number that is not a power of two, so that every
+ * single error has a distinct nonzero syndrome. With the overall parity, a single error is corrected,
+ * and a double error (a nonzero syndrome with an even overall parity) is reported as uncorrectable.
+ *
+ * @author 160021429
+ */
+public class ExtendedHammingCode extends AbstractBlockCode {
+	private final int ZERO = 0;
+	private final int ONE = 1;
+	private final int dataBits;
+	private final int r; // the number of hamming check bits
+	private final int length;
+	private final long dataMask;
+	private final long[] checkMasks; // checkMasks[j] selects the data bits that the check bit j covers
+	private final int[] errorPositions; // errorPositions[s] is the data bit of the syndrome s, or -1 if there is none
+	private final BitSlicer slicer; // the bit-sliced mode of the codes of length 64 or less, or null
+
+	/**
+	 * This constructor sets the proper values to the fields, which never change afterwards,
+	 * so an instance can be shared by any number of threads.
+	 * @param dataBits the number of data bits of a block (1 to 64), which is 64 for (72,64) and 32 for (39,32)
+	 * @throws IllegalArgumentException if the number of data bits is out of range
+	 */
+	public ExtendedHammingCode(int dataBits) {
+		if (dataBits < ONE || dataBits > BitUtil.WORD_SIZE) {
+			throw new IllegalArgumentException("An extended hamming code has 1 to 64 data bits, not " + dataBits);
+		}
+
+		int checks = 2;
+		while ((ONE << checks) < dataBits + checks + ONE) {
+			checks++;
+		}
+
+		this.dataBits = dataBits;
+		this.r = checks;
+		this.length = dataBits + checks + ONE;
+		this.dataMask = BitUtil.lowMask(dataBits);
+		this.checkMasks = new long[checks];
+		this.errorPositions = new int[ONE << checks];
+
+		Arrays.fill(this.errorPositions, -ONE);
+
+		int column = 2;
+		for (int i = ZERO; i < dataBits; i++) {
+			column++;
+			while (Integer.bitCount(column) == ONE) { // the powers of two are the columns of the check bits
+				column++;
+			}
+
+			this.errorPositions[column] = i;
+			for (int j = ZERO; j < checks; j++) {
+				if ((column >>> j & ONE) != ZERO) {
+					this.checkMasks[j] |= 1L << i;
+				}
+			}
+		}
+
+		this.slicer = BitSlicer.forCode(this); // the (39,32) code encodes and checks 64 blocks at once
+	}
+
+	@Override
+	BitSlicer getSlicer() {
+		return this.slicer;
+	}
+
+	/**
+	 * The getter for the length.
+	 * @return the length of the code
+	 */
+	@Override
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * The getter for the dimension.
+	 * @return the dimension of the code, which is the number of data bits
+	 */
+	@Override
+	public int getDimension() {
+		return this.dataBits;
+	}
+
+	/**
+	 * Calculates the hamming check bits of a data word.
+	 * @param data the data bits
+	 * @return the check bits, where the bit j is the parity of the data bits that the check bit j covers
+	 */
+	private long checkBits(long data) {
+		long checks = 0L;
+
+		for (int j = ZERO; j < r; j++) {
+			checks |= (long) (Long.bitCount(data & checkMasks[j]) & ONE) << j;
+		}
+		return checks;
+	}
+
+	/**
+	 * Encodes a single block: the data word, then the check bits, then the overall parity bit.
+	 * @param data the data bits of the block
+	 * @param code the array that the code bits are written to
+	 */
+	@Override
+	protected void encodeBlock(long[] data, long[] code) {
+		long bits = data[ZERO] & this.dataMask;
+		long checks = checkBits(bits);
+		long overall = (Long.bitCount(bits) + Long.bitCount(checks)) & ONE;
+
+		code[ZERO] = bits;
+		BitUtil.setBits(code, this.dataBits, this.r + ONE, checks | overall << this.r);
+	}
+
+	/**
+	 * Corrects a single error of a block, or detects a double error, and extracts its data bits.
+	 * @param code the code bits of the block, whose data bits are corrected in place
+	 * @param data the array that the data bits are written to
+	 * @return CLEAN if the block is a codeword, CORRECTED if it had a single error,
+	 * or UNCORRECTABLE if it had a double error (or more errors that look like one)
+	 */
+	@Override
+	protected int decodeBlock(long[] code, long[] data) {
+		long bits = code[ZERO] & this.dataMask;
+		long stored = BitUtil.getBits(code, this.dataBits, this.r + ONE);
+		int syndrome = (int) (checkBits(bits) ^ (stored & BitUtil.lowMask(this.r)));
+		int overall = (Long.bitCount(bits) + Long.bitCount(stored)) & ONE; // 1 if an odd number of bits are flipped
+
+		data[ZERO] = bits;
+
+		if (syndrome == ZERO) {
+			return (overall == ZERO) ? CLEAN : CORRECTED; // only the overall parity bit was flipped
+		}
+		if (overall == ZERO) {
+			return UNCORRECTABLE; // an even number of errors with a nonzero syndrome
+		}
+		if (Integer.bitCount(syndrome) == ONE) {
+			return CORRECTED; // a check bit was flipped, so the data bits are right
+		}
+
+		int position = this.errorPositions[syndrome];
+		if (position < ZERO) {
+			return UNCORRECTABLE; // the syndrome of no single error, so there are at least 3 errors
+		}
+
+		data[ZERO] = bits ^ 1L << position;
+		code[ZERO] ^= 1L << position;
+		return CORRECTED;
+	}
+
+	/**
+	 * Checks if a block is a codeword, which is the case when the check bits and the overall parity match the data.
+	 * @param code the code bits of the block
+	 * @return true if the syndrome and the overall parity are zero
+	 */
+	@Override
+	protected boolean isCodeword(long[] code) {
+		long bits = code[ZERO] & this.dataMask;
+		long stored = BitUtil.getBits(code, this.dataBits, this.r + ONE);
+		long expected = checkBits(bits);
+
+		return stored == (expected | (long) ((Long.bitCount(bits) + Long.bitCount(expected)) & ONE) << this.r);
+	}
+
+	/**
+	 * Extracts the data bits of a codeword, which are its first bits.
+	 * @param code the code bits of the codeword
+	 * @param data the array that the data bits are written to
+	 */
+	@Override
+	protected void extractMessage(long[] code, long[] data) {
+		data[ZERO] = code[ZERO] & this.dataMask;
+	}
+
+	/**
+	 * Returns the suitable string that identifies this instance.
+	 * @return identifying string
+	 */
+	public String toString() {
+		return "<Extended Hamming: length(" + this.length + "), dimension(" + this.dataBits + ")>";
+	}
+}
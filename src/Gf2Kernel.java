@@ -0,0 +1,57 @@
+/**
+ * The kernels of the products of a binary vector and a packed binary matrix over GF(2).
+ *
+ * A matrix is a flat long array of rows, where every row is packed into the given number of words
+ * (the bit j of the row i is the bit (j % 64) of the word i * words + j / 64).
+ *
+ * The kernel is chosen once, when the class is loaded. The Vector API kernel (VectorGf2Kernel) is used if it was
+ * compiled, the jdk.incubator.vector module is present (java --add-modules jdk.incubator.vector),
+ * and the preferred vector species has more than one lane; the scalar kernel is used otherwise.
+ * The system property ecc.gf2.kernel can be set to scalar or vector to force the choice.
+ *
+ * @author 160021429
+ */
+interface Gf2Kernel {
+	/**
+	 * The kernel of this JVM.
+	 */
+	Gf2Kernel INSTANCE = select();
+
+	/**
+	 * Multiplies the vector by the matrix (v x M), which is the sum of the rows that are selected by the vector.
+	 * @param vector the packed vector, whose set bits select the rows
+	 * @param matrix the packed matrix
+	 * @param rows the number of rows of the matrix (the length of the vector)
+	 * @param words the number of words of a row
+	 * @param result the array that receives the packed product, of at least words words
+	 */
+	void combineRows(long[] vector, long[] matrix, int rows, int words, long[] result);
+
+	/**
+	 * Multiplies up to 64 rows of the matrix by the vector (M x v^T), which gives the parity of each row and the vector.
+	 * @param vector the packed vector, of at least words words
+	 * @param matrix the packed matrix
+	 * @param row the index of the first row
+	 * @param count the number of rows (at most 64)
+	 * @param words the number of words of a row
+	 * @return the parities, where the bit t is the parity of the row (row + t) and the vector
+	 */
+	long rowParities(long[] vector, long[] matrix, int row, int count, int words);
+
+	/**
+	 * Chooses the kernel of this JVM.
+	 * @return the Vector API kernel if it is available and wanted, otherwise the scalar kernel
+	 */
+	static Gf2Kernel select() {
+		String wanted = System.getProperty("ecc.gf2.kernel", "vector");
+
+		if (wanted.equals("vector")) {
+			try {
+				return (Gf2Kernel) Class.forName("VectorGf2Kernel").getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+				// the kernel was not compiled, the module is missing, or the hardware has no vector lanes
+			}
+		}
+		return new ScalarGf2Kernel();
+	}
+}
@@ -1,36 +1,92 @@
-import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.concurrent.Executor;
 
 /**
  * The class for the hamming code.
+ *
+ * The blocks are processed as packed 64-bit words rather than one int per bit.
+ * Each parity bit is the parity of the code bits that are selected by a precomputed mask (mask-and-popcount),
+ * and the position of a single error is read straight from the syndrome.
+ * The codes of length 64 or less are also bit-sliced over groups of 64 blocks.
  * @author 160021429
  */
-public class HammingCode implements IECC {
+public class HammingCode extends AbstractBlockCode {
 	private final int ZERO = 0;
 	private final int ONE = 1;
-	private final int TWO = 2;
-	private int dimension;
-	private int length;
-	private boolean invalid;
-	private ArrayList<Integer> parityBits = new ArrayList<>();
+	private final int r;
+	private final int dimension;
+	private final int length;
+	private final int words; // the number of 64-bit words in a code block
+	private final boolean invalid;
+	private final long[][] parityMasks; // parityMasks[i] selects every position p where the bit i of (p + 1) is set
+	private final BlockKernel kernel; // the generated parity equations of the short codes (r <= 6), or null
+	private final BitSlicer slicer; // the bit-sliced mode of the short codes (r <= 6), or null
 
 	/**
-	 * This constructor sets the proper values to the fields.
+	 * This constructor sets the proper values to the fields, which never change afterwards,
+	 * so an instance can be shared by any number of threads.
 	 * @param r The number of parity check bits.
 	 */
 	public HammingCode(int r) {
+		this(r, false);
+	}
+
+	/**
+	 * The constructor that can also generate a kernel class for the parity equations of the short codes (r <= 6),
+	 * which the factory does for the codes that it caches.
+	 * @param r The number of parity check bits.
+	 * @param specialize true to generate the kernel, where the loops are kept as the fallback
+	 */
+	HammingCode(int r, boolean specialize) {
 		if (r < 2) {
 			this.invalid = true;
+			this.r = ZERO;
+			this.length = ZERO;
+			this.dimension = ZERO;
+			this.words = ZERO;
+			this.parityMasks = null;
+			this.kernel = null;
+			this.slicer = null;
 		} else {
-			length = (int) Math.pow(2, r) - 1;
+			this.invalid = false;
+			this.r = r;
+			length = (ONE << r) - ONE;
 			dimension = length - r;
+			words = BitUtil.numOfWords(length);
 
-			for (int i = ZERO; i < r; i++) {
-				parityBits.add(((int) Math.pow(TWO, i)) - ONE);
+			parityMasks = new long[r][words];
+
+			for (int p = ZERO; p < length; p++) {
+				for (int i = ZERO; i < r; i++) {
+					if (((p + ONE) >>> i & ONE) != ZERO) {
+						parityMasks[i][p >>> 6] |= 1L << p;
+					}
+				}
 			}
+
+			kernel = (specialize && words == ONE) ? KernelGenerator.forCode(this, parityRows(), r) : null;
+			slicer = BitSlicer.forCode(this); // the short codes (r <= 6) encode and check 64 blocks at once
 		}
 	}
 
+	/**
+	 * Returns the parity masks of a code that fits in one word, which are the rows of its parity check matrix.
+	 * @return the masks
+	 */
+	private long[] parityRows() {
+		long[] rows = new long[r];
+
+		for (int i = ZERO; i < r; i++) {
+			rows[i] = parityMasks[i][ZERO];
+		}
+		return rows;
+	}
+
+	@Override
+	BitSlicer getSlicer() {
+		return this.slicer;
+	}
+
 	/**
 	 * The getter for the length.
 	 * @return the length of the code
@@ -50,169 +106,150 @@ public class HammingCode implements IECC {
 	}
 
 	/**
-	 * Set the proper values to the parity bits.
-	 * @param bits The array that contains the code bits.
-	 * @return code array with proper value of parity bits.
+	 * Encodes a single block that fits in one word (r <= 6).
+	 * The data bits are spread to the positions which are not powers of two, in runs of (2^j - 1) bits,
+	 * and then each parity bit is set to the parity of the bits that it covers.
+	 * @param data the data bits of the block
+	 * @return the code bits of the block
 	 */
-	private int[] checkAndSetParity(int[] bits) {
-		int total = bits.length;
-		int size = parityBits.size();
-		int[] parity = new int[size];
+	private long encodeWord(long data) {
+		long code = 0L;
 
-		for (int i = ZERO; i < size; i++) {
-			int parityIndex = parityBits.get(i);
-			int parityCount = parityIndex + ONE;
+		for (int j = ONE; j < r; j++) {
+			int run = (ONE << j) - ONE;
+			code |= ((data >>> (run - j)) & BitUtil.lowMask(run)) << (run + ONE);
+		}
 
-			int sum = ZERO;
-			for (int k = parityIndex; k < total; k += parityCount) {
+		for (int i = ZERO; i < r; i++) {
+			code |= (long) (Long.bitCount(code & parityMasks[i][ZERO]) & ONE) << ((ONE << i) - ONE);
+		}
 
-				int count = ZERO;
+		return code;
+	}
 
-				while (count < parityCount && k < total) {
-					sum += bits[k];
-					count += ONE;
-					k += ONE;
-				}
-			}
+	/**
+	 * Extracts the data bits of a single block that fits in one word (r <= 6).
+	 * @param code the code bits of the block
+	 * @return the data bits of the block
+	 */
+	private long extractWord(long code) {
+		long data = 0L;
 
-			// if the result of parity checking is an odd number, set the parity bit as 1
-			if (sum % TWO != ZERO) {
-				parity[i] = ONE;
-			}
+		for (int j = ONE; j < r; j++) {
+			int run = (ONE << j) - ONE;
+			data |= ((code >>> (run + ONE)) & BitUtil.lowMask(run)) << (run - j);
 		}
 
-		return parity;
+		return data;
 	}
 
 	/**
-	 * This method encodes the given plain text by using the hamming code.
-	 *
-	 * @param plaintext The bit set of plain text
-	 * @param len The length of the code
-	 * @return encoded bit set
+	 * Encodes a single block.
+	 * @param data the data bits of the block
+	 * @param code the array that the code bits are written to
 	 */
 	@Override
-	public BitSet encode(BitSet plaintext, int len) {
-		if (this.invalid) {
-			return null;
+	protected void encodeBlock(long[] data, long[] code) {
+		if (this.words == ONE) {
+			code[ZERO] = (this.kernel != null) ? kernel.encode(data[ZERO]) : encodeWord(data[ZERO]);
+			return;
 		}
 
-		int numOfBlock = (len > this.dimension) ? (
-				(len % this.dimension == 0) ? len / this.dimension : (len / this.dimension) + 1
-			) : 1;
-
-		int totalLength = this.getLength() * numOfBlock;
-
-		BitSet encoded = new BitSet(totalLength);
-
-		if (plaintext.isEmpty()) { // check if all bits are zero
-			return encoded;
+		for (int i = ZERO; i < words; i++) {
+			code[i] = 0L;
 		}
 
-		int limit = this.length;
-		int start = ZERO;
-		int blockIndex = ZERO;
-
-		int nonZero = plaintext.nextSetBit(ZERO);
-		int totalIndex = ZERO;
-
-		while (limit <= totalLength) { //iterate the all plain text blocks
-
-			int[] bits = new int[this.length];
-
-			int parityCount = ZERO;
-			int count = ZERO;
-
-			int paritySpace = this.parityBits.get(ZERO);
-			int index = ZERO;
+		for (int j = ONE; j < r; j++) {
+			int run = (ONE << j) - ONE;
+			BitUtil.copyBits(data, run - j, code, run + ONE, run);
+		}
 
-			while (start < limit) {
-				if (count != paritySpace) { //check if the current bit is a parity bit.
+		for (int i = ZERO; i < r; i++) {
+			int parityIndex = (ONE << i) - ONE;
+			code[parityIndex >>> 6] |= (long) BitUtil.parity(code, parityMasks[i]) << parityIndex;
+		}
+	}
 
-					if (nonZero == totalIndex) { //check if the current bit is a set bit
+	/**
+	 * Corrects a single block and extracts its data bits.
+	 * As the hamming code is perfect, every block is within distance 1 of a unique codeword.
+	 * @param code the code bits of the block, which are corrected in place
+	 * @param data the array that the data bits are written to
+	 * @return CLEAN if the syndrome is zero, otherwise CORRECTED
+	 */
+	@Override
+	protected int decodeBlock(long[] code, long[] data) {
+		int syndrome = ZERO;
 
-						bits[index] = ONE;
-						encoded.set(start);
+		if (this.kernel != null) {
+			syndrome = (int) kernel.syndrome(code[ZERO]);
+		} else {
+			for (int i = ZERO; i < r; i++) {
+				syndrome |= BitUtil.parity(code, parityMasks[i]) << i;
+			}
+		}
 
-						// find the next set bit
-						nonZero = plaintext.nextSetBit(nonZero + ONE);
-					}
-					totalIndex += ONE;
+		if (syndrome != ZERO) {
+			int errorIndex = syndrome - ONE; // the syndrome is the (1-based) position of the error
+			code[errorIndex >>> 6] ^= 1L << errorIndex;
+		}
 
-				} else {
-					parityCount += ONE;
-					if (parityCount != parityBits.size()) {
-						paritySpace = this.parityBits.get(parityCount);
-					}
-				}
+		extractMessage(code, data);
 
-				start += 1;
-				count += 1;
-				index += 1;
-			}
+		return (syndrome == ZERO) ? CLEAN : CORRECTED;
+	}
 
-			int[] parity = checkAndSetParity(bits);
+	/**
+	 * Checks if a block is a codeword, which is the case when every parity bit covers an even number of set bits.
+	 * @param code the code bits of the block
+	 * @return true if the syndrome is zero
+	 */
+	@Override
+	protected boolean isCodeword(long[] code) {
+		if (this.kernel != null) {
+			return kernel.syndrome(code[ZERO]) == 0L;
+		}
 
-			// set the proper values to the parity bits
-			for (int j = ZERO; j < parity.length; j++) {
-				if (parity[j] != ZERO) {
-					int parityIndex = this.parityBits.get(j) + blockIndex;
-					encoded.set(parityIndex);
-				}
+		for (int i = ZERO; i < r; i++) {
+			if (BitUtil.parity(code, parityMasks[i]) != ZERO) {
+				return false;
 			}
-
-			limit += this.length;
-			blockIndex += this.length;
 		}
-
-		return encoded;
+		return true;
 	}
 
 	/**
-	 * This method corrects the error by parity checking.
-	 * @param code The bit set of code that might be corrected
-	 * @param totalLength the total length of the code
+	 * Extracts the data bits of a codeword.
+	 * @param code the code bits of the codeword
+	 * @param data the array that the data bits are written to
 	 */
-	private void errorCorrection(BitSet code, int totalLength) {
-		int nonZero = code.nextSetBit(ZERO);
-		int start = ZERO;
-
-		while (start < totalLength) {
-			int parityCheckBit = ZERO;
-			int[] ia = new int[this.length];
-
-			for (int i = ZERO; i < this.length; i++) {
-				int index = start + i;
-				if (nonZero == index) {
-					ia[i] = 1;
-					nonZero = code.nextSetBit(nonZero + ONE);
-				}
-			}
-
-			for (int i = this.parityBits.size() - 1; i >= ZERO; i--) {
-				int parityBit = this.parityBits.get(i);
-				int pb = parityBit;
-				int sum = ZERO;
-
-				while (pb < this.length) {
-					int pCount = ZERO;
-					while (pCount <= parityBit) {
-						sum += ia[pb];
-						pb += ONE;
-						pCount += ONE;
-					}
-					pb += (parityBit + 1);
-				}
-
-				parityCheckBit = (parityCheckBit << 1) | (sum % 2);
-			}
+	@Override
+	protected void extractMessage(long[] code, long[] data) {
+		if (this.words == ONE) {
+			data[ZERO] = extractWord(code[ZERO]);
+			return;
+		}
 
-			if (parityCheckBit != ZERO) {
-				code.flip(start + parityCheckBit - 1);
-			}
+		for (int j = ONE; j < r; j++) {
+			int run = (ONE << j) - ONE;
+			BitUtil.copyBits(code, run + ONE, data, run - j, run);
+		}
+	}
 
-			start += this.length;
+	/**
+	 * This method encodes the given plain text by using the hamming code.
+	 *
+	 * @param plaintext The bit set of plain text
+	 * @param len The length of the code
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 * @return encoded bit set
+	 */
+	@Override
+	public BitSet encode(BitSet plaintext, int len, Executor executor) {
+		if (this.invalid) {
+			return null;
 		}
+		return super.encode(plaintext, len, executor);
 	}
 
 	/**
@@ -220,60 +257,15 @@ public class HammingCode implements IECC {
      * and then replacing each block with the plaintext corresponding to A closest codeword (in Hamming distance).
      * @param codetext the binary input
      * @param len the length of the codetext
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
      * @return the decoded version of plaintext (padded to a whole number of blocks)
 	 */
 	@Override
-	public BitSet decodeAlways(BitSet codetext, int len) {
+	public BitSet decodeAlways(BitSet codetext, int len, Executor executor) {
 		if (this.invalid) {
 			return null;
 		}
-
-		errorCorrection(codetext, len); //check and correct the error in the given code text
-
-		int numOfBlocks = (len > this.length) ? (
-				(len % this.length != 0) ? (len / this.length) + 1 : (len / this.length)
-		) : 1;
-
-		int totalLength = this.dimension * numOfBlocks;
-
-		int startIndex = ZERO;
-		int processedLength = ZERO;
-		int nonZero = codetext.nextSetBit(ZERO);
-		int index = ZERO;
-
-		BitSet decoded = new BitSet(totalLength);
-
-		while (processedLength < totalLength) {
-			int parityIndex = ZERO;
-			int paritySpace = this.parityBits.get(parityIndex);
-
-			for (int i = 0; i < this.length; i++) {
-				if (paritySpace != i) {
-					if (nonZero == startIndex) {
-						nonZero = codetext.nextSetBit(nonZero + 1);
-						decoded.set(index);
-						//System.out.println("bit: " + index + " " + startIndex);
-					}
-					index += ONE;
-				} else {
-
-					if (nonZero == startIndex) {
-						nonZero = codetext.nextSetBit(nonZero + 1);
-					}
-
-					parityIndex += ONE;
-					if (parityIndex < this.parityBits.size()) {
-						paritySpace = this.parityBits.get(parityIndex);
-					}
-				}
-
-				startIndex += ONE;
-			}
-
-			processedLength += this.dimension;
-		}
-
-		return decoded;
+		return super.decodeAlways(codetext, len, executor);
 	}
 
 	/**
@@ -282,12 +274,13 @@ public class HammingCode implements IECC {
      *
 	 * @param codetext The target code text
 	 * @param len The length of the given code text
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
 	 * @return the decoded version of plaintext (padded to a whole number of blocks)
 	 * @throws UncorrectableErrorException
 	 */
 	@Override
-	public BitSet decodeIfUnique(BitSet codetext, int len) throws UncorrectableErrorException {
-		return this.decodeAlways(codetext, len);
+	public BitSet decodeIfUnique(BitSet codetext, int len, Executor executor) throws UncorrectableErrorException {
+		return this.decodeAlways(codetext, len, executor);
 	}
 
 	/**
@@ -300,4 +293,4 @@ public class HammingCode implements IECC {
 		}
 		return "length(" + this.length + "), dimenstion(" + this.dimension + ")";
 	}
-}
\ No newline at end of file
+}
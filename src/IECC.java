@@ -1,3 +1,5 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.BitSet;
 
 /** Interface which is the main specification for CS3302 practical 2.
@@ -7,6 +9,10 @@ import java.util.BitSet;
  * We use the BitSet class to represent a binary vector. The only
  * problem is that a BitSet does not know its length, so we have to
  * supply the length as an additional argument to some methods
+ *
+ * The overloads on long[] and ByteBuffer read the input from and write the output to the arrays and buffers
+ * of the caller, in the packed layout of BitSet.toLongArray() and BitSet.valueOf(ByteBuffer).
+ * Their default implementations go through the BitSet methods, and AbstractBlockCode implements them without the copies.
  */
 public interface IECC {
 
@@ -50,6 +56,247 @@ public interface IECC {
      */
     BitSet decodeIfUnique(BitSet codetext, int len) throws UncorrectableErrorException;
 
+    /**
+     * decodes a vector of coded text like decodeAlways, and also reports the status of every block
+     * (clean, corrected, or uncorrectable), instead of giving up on the first block without a unique closest codeword.
+     * This default decodes the blocks one at a time with decodeIfUnique and falls back to decodeAlways
+     * for the uncorrectable blocks; the codes in this package decode the whole vector at once.
+     * @param codetext the binary input
+     * @param len the length of the codetext
+     * @return the decoded version of plaintext (padded to a whole number of blocks) and the status of each block
+     */
+    default DecodeResult decodeWithStatus(BitSet codetext, int len) {
+        int length = getLength();
+        int dimension = getDimension();
+        int numOfBlocks = BitUtil.numOfBlocks(len, length);
+        BitSet plaintext = new BitSet();
+        long[] statuses = DecodeResult.newStatuses(numOfBlocks);
+
+        for (int b = 0; b < numOfBlocks; b++) {
+            BitSet block = codetext.get(b * length, (b + 1) * length);
+            BitSet decoded;
+
+            try {
+                decoded = decodeIfUnique(block, length);
+
+                if (!encode(decoded.get(0, dimension), dimension).equals(block)) {
+                    DecodeResult.setStatus(statuses, b, DecodeResult.CORRECTED);
+                }
+            } catch (UncorrectableErrorException e) {
+                decoded = decodeAlways(block, length);
+                DecodeResult.setStatus(statuses, b, DecodeResult.UNCORRECTABLE);
+            }
+
+            for (int i = decoded.nextSetBit(0); i >= 0 && i < dimension; i = decoded.nextSetBit(i + 1)) {
+                plaintext.set(b * dimension + i);
+            }
+        }
+        return new DecodeResult(plaintext, numOfBlocks, statuses);
+    }
+
+    /**
+     * converts a range of packed plaintext to the corresponding coded text, which is written to the given array.
+     * The plaintext is padded with zeros to a whole number of blocks, and only the bits of the coded text are written.
+     * @param plaintext the packed binary input
+     * @param offset the index of the first bit of the plaintext
+     * @param len the length of the plaintext
+     * @param codetext the packed array that receives the coded text
+     * @param codeOffset the index of the first bit of the coded text
+     * @return the number of bits of the coded text
+     */
+    default long encode(long[] plaintext, long offset, int len, long[] codetext, long codeOffset) {
+        if (len == 0) {
+            return 0L;
+        }
+
+        long codeLen = (long) BitUtil.numOfBlocks(len, getDimension()) * getLength();
+        BitUtil.copyBits(encode(toBitSet(plaintext, offset, len), len).toLongArray(), 0, codetext, codeOffset, codeLen);
+        return codeLen;
+    }
+
+    /**
+     * decodes a range of packed coded text like decodeAlways(BitSet, int), and writes the plaintext to the given array.
+     * The plaintext must not overlap the coded text; the in-place methods decode a range over itself.
+     * @param codetext the packed binary input
+     * @param offset the index of the first bit of the coded text
+     * @param len the length of the coded text
+     * @param plaintext the packed array that receives the plaintext
+     * @param plainOffset the index of the first bit of the plaintext
+     * @return the number of bits of the plaintext
+     */
+    default long decodeAlways(long[] codetext, long offset, int len, long[] plaintext, long plainOffset) {
+        if (len == 0) {
+            return 0L;
+        }
+
+        long plainLen = (long) BitUtil.numOfBlocks(len, getLength()) * getDimension();
+        BitUtil.copyBits(decodeAlways(toBitSet(codetext, offset, len), len).toLongArray(), 0, plaintext, plainOffset, plainLen);
+        return plainLen;
+    }
+
+    /**
+     * decodes a range of packed coded text like decodeIfUnique(BitSet, int), and writes the plaintext to the given array.
+     * The plaintext must not overlap the coded text; the in-place methods decode a range over itself.
+     * @param codetext the packed binary input
+     * @param offset the index of the first bit of the coded text
+     * @param len the length of the coded text
+     * @param plaintext the packed array that receives the plaintext
+     * @param plainOffset the index of the first bit of the plaintext
+     * @return the number of bits of the plaintext
+     * @throws UncorrectableErrorException if there is no uniquely best decoding
+     */
+    default long decodeIfUnique(long[] codetext, long offset, int len, long[] plaintext, long plainOffset)
+            throws UncorrectableErrorException {
+        if (len == 0) {
+            return 0L;
+        }
+
+        long plainLen = (long) BitUtil.numOfBlocks(len, getLength()) * getDimension();
+        BitUtil.copyBits(decodeIfUnique(toBitSet(codetext, offset, len), len).toLongArray(), 0, plaintext, plainOffset, plainLen);
+        return plainLen;
+    }
+
+    /**
+     * decodes a range of packed coded text like decodeAlways(BitSet, int), and writes the plaintext over the coded text,
+     * from the same index. This is the opt-in in-place mode, which saves the output array;
+     * every other method leaves its input unchanged.
+     * @param text the packed coded text, which receives the plaintext
+     * @param offset the index of the first bit of the coded text and of the plaintext
+     * @param len the length of the coded text
+     * @return the number of bits of the plaintext
+     */
+    default long decodeAlwaysInPlace(long[] text, long offset, int len) {
+        return decodeAlways(text, offset, len, text, offset);
+    }
+
+    /**
+     * decodes a range of packed coded text like decodeIfUnique(BitSet, int), and writes the plaintext over the coded text,
+     * from the same index. This is the opt-in in-place mode, which saves the output array;
+     * every other method leaves its input unchanged.
+     * @param text the packed coded text, which receives the plaintext
+     * @param offset the index of the first bit of the coded text and of the plaintext
+     * @param len the length of the coded text
+     * @return the number of bits of the plaintext
+     * @throws UncorrectableErrorException if there is no uniquely best decoding,
+     *         in which case the blocks before the uncorrectable block may already have been overwritten
+     */
+    default long decodeIfUniqueInPlace(long[] text, long offset, int len) throws UncorrectableErrorException {
+        return decodeIfUnique(text, offset, len, text, offset);
+    }
+
+    /**
+     * converts the remaining bytes of the plaintext buffer to the corresponding coded text,
+     * which is written to the code buffer. The plaintext is padded with zeros to a whole number of blocks,
+     * and the coded text is padded with zeros to a whole number of bytes.
+     * The position of the plaintext buffer is moved to its limit, and the position of the code buffer after the coded text.
+     * @param plaintext the binary input
+     * @param codetext the buffer that receives the coded text
+     * @throws BufferOverflowException if the code buffer does not have enough space, in which case neither buffer is changed
+     */
+    default void encode(ByteBuffer plaintext, ByteBuffer codetext) {
+        int len = Math.multiplyExact(plaintext.remaining(), Byte.SIZE);
+
+        if (len == 0) {
+            return;
+        }
+
+        int codeBytes = (int) BitUtil.numOfBytes((long) BitUtil.numOfBlocks(len, getDimension()) * getLength());
+        if (codetext.remaining() < codeBytes) {
+            throw new BufferOverflowException();
+        }
+
+        put(encode(toBitSet(plaintext), len), codetext, codeBytes);
+    }
+
+    /**
+     * decodes the remaining bytes of the code buffer like decodeAlways(BitSet, int),
+     * and writes the plaintext to the plaintext buffer, padded with zeros to a whole number of bytes.
+     * The position of the code buffer is moved to its limit, and the position of the plaintext buffer after the plaintext.
+     * @param codetext the binary input
+     * @param plaintext the buffer that receives the plaintext
+     * @throws BufferOverflowException if the plaintext buffer does not have enough space, in which case neither buffer is changed
+     */
+    default void decodeAlways(ByteBuffer codetext, ByteBuffer plaintext) {
+        int len = Math.multiplyExact(codetext.remaining(), Byte.SIZE);
+
+        if (len == 0) {
+            return;
+        }
+
+        int plainBytes = (int) BitUtil.numOfBytes((long) BitUtil.numOfBlocks(len, getLength()) * getDimension());
+        if (plaintext.remaining() < plainBytes) {
+            throw new BufferOverflowException();
+        }
+
+        put(decodeAlways(toBitSet(codetext), len), plaintext, plainBytes);
+    }
+
+    /**
+     * decodes the remaining bytes of the code buffer like decodeIfUnique(BitSet, int),
+     * and writes the plaintext to the plaintext buffer, padded with zeros to a whole number of bytes.
+     * The position of the code buffer is moved to its limit, and the position of the plaintext buffer after the plaintext.
+     * @param codetext the binary input
+     * @param plaintext the buffer that receives the plaintext
+     * @throws BufferOverflowException if the plaintext buffer does not have enough space, in which case neither buffer is changed
+     * @throws UncorrectableErrorException if there is no uniquely best decoding, in which case the positions are not changed
+     */
+    default void decodeIfUnique(ByteBuffer codetext, ByteBuffer plaintext) throws UncorrectableErrorException {
+        int len = Math.multiplyExact(codetext.remaining(), Byte.SIZE);
+
+        if (len == 0) {
+            return;
+        }
+
+        int plainBytes = (int) BitUtil.numOfBytes((long) BitUtil.numOfBlocks(len, getLength()) * getDimension());
+        if (plaintext.remaining() < plainBytes) {
+            throw new BufferOverflowException();
+        }
+
+        BitSet decoded = decodeIfUnique(toBitSet(codetext.duplicate()), len);
+        codetext.position(codetext.limit());
+        put(decoded, plaintext, plainBytes);
+    }
+
+    /**
+     * copies a range of a packed array into a new bit set.
+     * @param words the packed array
+     * @param offset the index of the first bit
+     * @param len the number of bits
+     * @return the bit set
+     */
+    private static BitSet toBitSet(long[] words, long offset, int len) {
+        long[] copy = new long[BitUtil.numOfWords(len)];
+        BitUtil.copyBits(words, offset, copy, 0, len);
+        return BitSet.valueOf(copy);
+    }
+
+    /**
+     * reads the remaining bytes of the buffer into a new bit set.
+     * @param bytes the buffer, whose position is moved to its limit
+     * @return the bit set
+     */
+    private static BitSet toBitSet(ByteBuffer bytes) {
+        BitSet bits = BitSet.valueOf(bytes);
+        bytes.position(bytes.limit());
+        return bits;
+    }
+
+    /**
+     * writes the bit set to the buffer as the given number of bytes.
+     * @param bits the bit set
+     * @param bytes the buffer, whose position is moved after the written bytes
+     * @param count the number of bytes, which is padded with zero bytes if the bit set is shorter
+     */
+    private static void put(BitSet bits, ByteBuffer bytes, int count) {
+        byte[] array = bits.toByteArray();
+        int n = Math.min(array.length, count);
+
+        bytes.put(array, 0, n);
+        for (int i = n; i < count; i++) {
+            bytes.put((byte) 0);
+        }
+    }
+
     /** 
      * toString method for convenience in error message etc.
      * @return a concise human-readable representation of the code
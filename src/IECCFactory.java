@@ -15,4 +15,33 @@ public interface IECCFactory {
      * @return the code
      */
     IECC makeReedMullerCode(int k, int r);
+
+    /** Make an extended Hamming Code (SECDED) with the given number of data bits, like (72,64) or (39,32).
+     * @param dataBits the number of data bits of a block (1 to 64)
+     * @return the code
+     * @throws IllegalArgumentException if the number of data bits is out of range
+     */
+    default IECC makeExtendedHammingCode(int dataBits) {
+        return new ExtendedHammingCode(dataBits);
+    }
+
+    /** Make a linear code from its generator matrix or its parity check matrix.
+     * @param matrix the matrix of 0 and 1 values
+     * @param isParityCheck true if the matrix is a parity check matrix, false if it is a generator matrix
+     * @return the code
+     * @throws IllegalArgumentException if the matrix does not describe a code
+     */
+    default IECC makeLinearCode(int[][] matrix, boolean isParityCheck) {
+        return isParityCheck ? LinearCode.fromParityCheck(matrix) : LinearCode.fromGenerator(matrix);
+    }
+
+    /** Make a block interleaver of the given depth around a code, which spreads bursts of errors over its blocks.
+     * @param code the wrapped code
+     * @param depth the number of blocks of the wrapped code in each interleaved block
+     * @return the code
+     * @throws IllegalArgumentException if the depth is not positive or the code cannot encode
+     */
+    default IECC makeInterleavedCode(IECC code, int depth) {
+        return new InterleavedCode(code, depth);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,453 @@
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * The block interleaver, which wraps any code so that a burst of errors is spread over several of its blocks.
+ *
+ * A block of the interleaved code holds depth blocks of the wrapped code: the message is split into depth messages
+ * of the wrapped code, which are encoded one after another, and the depth code blocks are sent column by column,
+ * so the bit i of the code block j is the bit (i * depth + j) of the interleaved block.
+ * A burst of up to depth consecutive errors then flips at most one bit of each wrapped block,
+ * which a single error correcting code corrects. The interleaved code has length n * depth and dimension k * depth.
+ *
+ * The depth code blocks form a depth by n bit matrix, which is interleaved and deinterleaved
+ * with the 64 x 64 transposes of BitUtil, so the interleaver reads and writes whole words instead of single bits.
+ * The blocks are processed in groups of about GROUP_BITS bits, which stay in the cache between the wrapped code
+ * and the transpose. The long[] and ByteBuffer methods are implemented without the BitSet copies,
+ * so the interleaved code can be used by EccOutputStream, EccInputStream, CodeSession and MappedFileCodec.
+ *
+ * The instances never change, so an instance can be shared by any number of threads if the wrapped code can.
+ *
+ * @author 160021429
+ */
+public class InterleavedCode implements IECC {
+	/**
+	 * The approximate number of code bits of a group of interleaved blocks.
+	 */
+	static final int GROUP_BITS = 1 << 18;
+
+	private final int ZERO = 0;
+	private final int ONE = 1;
+	private final IECC code; // the wrapped code
+	private final int depth; // the number of wrapped blocks in an interleaved block
+	private final int length;
+	private final int dimension;
+	private final int groupBlocks; // the number of interleaved blocks in a group
+
+	/**
+	 * The constructor that wraps the given code.
+	 * @param code the wrapped code
+	 * @param depth the number of blocks of the wrapped code in each interleaved block, which is the longest burst
+	 * that hits every wrapped block at most once
+	 * @throws IllegalArgumentException if the depth is not positive, if the code cannot encode,
+	 * or if the interleaved block would have more than Integer.MAX_VALUE bits
+	 */
+	public InterleavedCode(IECC code, int depth) {
+		if (depth < ONE) {
+			throw new IllegalArgumentException("The depth must be positive, not " + depth);
+		}
+		if (code.getDimension() <= ZERO) {
+			throw new IllegalArgumentException("Cannot interleave " + code);
+		}
+		if ((long) code.getLength() * depth > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The interleaved block of " + code + " with the depth " + depth
+					+ " is too long");
+		}
+
+		this.code = code;
+		this.depth = depth;
+		this.length = code.getLength() * depth;
+		this.dimension = code.getDimension() * depth;
+		this.groupBlocks = Math.max(ONE, GROUP_BITS / this.length);
+	}
+
+	/**
+	 * The getter for the wrapped code.
+	 * @return the code whose blocks are interleaved
+	 */
+	public IECC getCode() {
+		return this.code;
+	}
+
+	/**
+	 * The getter for the depth.
+	 * @return the number of blocks of the wrapped code in each interleaved block
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * The getter for the length.
+	 * @return the length of the code, which is depth times the length of the wrapped code
+	 */
+	@Override
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * The getter for the dimension.
+	 * @return the dimension of the code, which is depth times the dimension of the wrapped code
+	 */
+	@Override
+	public int getDimension() {
+		return this.dimension;
+	}
+
+	/**
+	 * Encodes the plaintext with the wrapped code, and interleaves every block.
+	 * @param plaintext the binary input
+	 * @param len the length of the plaintext
+	 * @return the encoded version of plaintext (padded with zeros to a whole number of blocks)
+	 */
+	@Override
+	public BitSet encode(BitSet plaintext, int len) {
+		int numOfBlocks = BitUtil.numOfBlocks(len, this.dimension);
+		long[] out = new long[BitUtil.numOfWords((long) numOfBlocks * this.length)];
+
+		encodeBlocks(plaintext.toLongArray(), ZERO, len, out, ZERO, numOfBlocks);
+		return BitSet.valueOf(out);
+	}
+
+	/**
+	 * Deinterleaves every block, and decodes them with decodeAlways of the wrapped code.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @return the decoded version of plaintext (padded to a whole number of blocks)
+	 */
+	@Override
+	public BitSet decodeAlways(BitSet codetext, int len) {
+		int numOfBlocks = BitUtil.numOfBlocks(len, this.length);
+		long[] out = new long[BitUtil.numOfWords((long) numOfBlocks * this.dimension)];
+
+		try {
+			decodeBlocks(codetext.toLongArray(), ZERO, len, out, ZERO, numOfBlocks, false);
+		} catch (UncorrectableErrorException e) {
+			throw new IllegalStateException(e); // decodeAlways never throws it
+		}
+		return BitSet.valueOf(out);
+	}
+
+	/**
+	 * Deinterleaves every block, and decodes them with decodeIfUnique of the wrapped code.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @return the decoded version of plaintext (padded to a whole number of blocks)
+	 * @throws UncorrectableErrorException if a wrapped block has no uniquely best decoding
+	 */
+	@Override
+	public BitSet decodeIfUnique(BitSet codetext, int len) throws UncorrectableErrorException {
+		int numOfBlocks = BitUtil.numOfBlocks(len, this.length);
+		long[] out = new long[BitUtil.numOfWords((long) numOfBlocks * this.dimension)];
+
+		decodeBlocks(codetext.toLongArray(), ZERO, len, out, ZERO, numOfBlocks, true);
+		return BitSet.valueOf(out);
+	}
+
+	/**
+	 * Deinterleaves every block, and decodes them with decodeWithStatus of the wrapped code.
+	 * The status of an interleaved block is the worst status of its wrapped blocks.
+	 * @param codetext the binary input
+	 * @param len the length of the codetext
+	 * @return the decoded version of plaintext (padded to a whole number of blocks) and the status of each block
+	 */
+	@Override
+	public DecodeResult decodeWithStatus(BitSet codetext, int len) {
+		int numOfBlocks = BitUtil.numOfBlocks(len, this.length);
+		long[] in = codetext.toLongArray();
+		long[] out = new long[BitUtil.numOfWords((long) numOfBlocks * this.dimension)];
+		long[] statuses = DecodeResult.newStatuses(numOfBlocks);
+		long[] blocks = new long[BitUtil.numOfWords((long) Math.min(this.groupBlocks, numOfBlocks) * this.length)];
+		long[] tile = new long[BitUtil.WORD_SIZE];
+
+		for (int b = ZERO; b < numOfBlocks; b += this.groupBlocks) {
+			int count = Math.min(this.groupBlocks, numOfBlocks - b);
+
+			deinterleave(in, (long) b * this.length, len, blocks, count, tile);
+
+			DecodeResult result = this.code.decodeWithStatus(BitSet.valueOf(blocks), count * this.length);
+			BitUtil.copyBits(result.getPlaintext().toLongArray(), ZERO, out, (long) b * this.dimension,
+					(long) count * this.dimension);
+
+			for (int i = ZERO; i < count; i++) {
+				int status = DecodeResult.CLEAN;
+
+				for (int j = ZERO; j < this.depth; j++) {
+					status = Math.max(status, result.getStatus(i * this.depth + j)); // CLEAN < CORRECTED < UNCORRECTABLE
+				}
+				DecodeResult.setStatus(statuses, b + i, status);
+			}
+		}
+		return new DecodeResult(BitSet.valueOf(out), numOfBlocks, statuses);
+	}
+
+	/**
+	 * Encodes a range of packed plaintext with the wrapped code, and interleaves every block into the given array.
+	 * @param plaintext the packed binary input
+	 * @param offset the index of the first bit of the plaintext
+	 * @param len the length of the plaintext
+	 * @param codetext the packed array that receives the coded text
+	 * @param codeOffset the index of the first bit of the coded text
+	 * @return the number of bits of the coded text
+	 */
+	@Override
+	public long encode(long[] plaintext, long offset, int len, long[] codetext, long codeOffset) {
+		int numOfBlocks = countBlocks(len, this.dimension);
+
+		encodeBlocks(plaintext, offset, offset + len, codetext, codeOffset, numOfBlocks);
+		return (long) numOfBlocks * this.length;
+	}
+
+	/**
+	 * Deinterleaves a range of packed coded text, and decodes it like decodeAlways(BitSet, int) into the given array.
+	 * Every group of blocks is read before its plaintext is written, so the plaintext may also overwrite the coded text
+	 * from the same index, as decodeAlwaysInPlace does.
+	 * @param codetext the packed binary input
+	 * @param offset the index of the first bit of the coded text
+	 * @param len the length of the coded text
+	 * @param plaintext the packed array that receives the plaintext
+	 * @param plainOffset the index of the first bit of the plaintext
+	 * @return the number of bits of the plaintext
+	 */
+	@Override
+	public long decodeAlways(long[] codetext, long offset, int len, long[] plaintext, long plainOffset) {
+		int numOfBlocks = countBlocks(len, this.length);
+
+		try {
+			decodeBlocks(codetext, offset, offset + len, plaintext, plainOffset, numOfBlocks, false);
+		} catch (UncorrectableErrorException e) {
+			throw new IllegalStateException(e); // decodeAlways never throws it
+		}
+		return (long) numOfBlocks * this.dimension;
+	}
+
+	/**
+	 * Deinterleaves a range of packed coded text, and decodes it like decodeIfUnique(BitSet, int) into the given array.
+	 * @param codetext the packed binary input
+	 * @param offset the index of the first bit of the coded text
+	 * @param len the length of the coded text
+	 * @param plaintext the packed array that receives the plaintext
+	 * @param plainOffset the index of the first bit of the plaintext
+	 * @return the number of bits of the plaintext
+	 * @throws UncorrectableErrorException if a wrapped block has no uniquely best decoding,
+	 * 	in which case the groups of blocks before it may already have been written
+	 */
+	@Override
+	public long decodeIfUnique(long[] codetext, long offset, int len, long[] plaintext, long plainOffset)
+			throws UncorrectableErrorException {
+		int numOfBlocks = countBlocks(len, this.length);
+
+		decodeBlocks(codetext, offset, offset + len, plaintext, plainOffset, numOfBlocks, true);
+		return (long) numOfBlocks * this.dimension;
+	}
+
+	/**
+	 * Encodes the remaining bytes of the plaintext buffer with the wrapped code,
+	 * and writes the interleaved blocks to the code buffer. The buffers can be heap or direct buffers.
+	 * @param plaintext the binary input
+	 * @param codetext the buffer that receives the coded text
+	 * @throws java.nio.BufferOverflowException if the code buffer does not have enough space,
+	 * 	in which case neither buffer is changed
+	 */
+	@Override
+	public void encode(ByteBuffer plaintext, ByteBuffer codetext) {
+		int numOfBlocks = countBlocks((long) plaintext.remaining() * Byte.SIZE, this.dimension);
+		int codeBytes = AbstractBlockCode.reserve(codetext, (long) numOfBlocks * this.length);
+		long inOffset = (long) plaintext.position() * Byte.SIZE;
+		long outOffset = (long) codetext.position() * Byte.SIZE;
+		int groupSize = Math.min(this.groupBlocks, numOfBlocks);
+		long[] in = new long[BitUtil.numOfWords((long) groupSize * this.dimension)];
+		long[] out = new long[BitUtil.numOfWords((long) groupSize * this.length)];
+
+		for (int b = ZERO; b < numOfBlocks; b += this.groupBlocks) {
+			int count = Math.min(this.groupBlocks, numOfBlocks - b);
+			long inBits = (long) count * this.dimension;
+			long outBits = (long) count * this.length;
+
+			BitUtil.copyBits(plaintext, inOffset + (long) b * this.dimension, in, ZERO, inBits); // zeros after the limit
+			encodeBlocks(in, ZERO, inBits, out, ZERO, count);
+			BitUtil.copyBits(out, ZERO, codetext, outOffset + (long) b * this.length, outBits);
+		}
+
+		plaintext.position(plaintext.limit());
+		codetext.position(codetext.position() + codeBytes);
+	}
+
+	/**
+	 * Deinterleaves the remaining bytes of the code buffer, decodes them like decodeAlways(BitSet, int),
+	 * and writes the plaintext to the plaintext buffer. The buffers can be heap or direct buffers.
+	 * @param codetext the binary input
+	 * @param plaintext the buffer that receives the plaintext
+	 * @throws java.nio.BufferOverflowException if the plaintext buffer does not have enough space,
+	 * 	in which case neither buffer is changed
+	 */
+	@Override
+	public void decodeAlways(ByteBuffer codetext, ByteBuffer plaintext) {
+		try {
+			decodeBuffer(codetext, plaintext, false);
+		} catch (UncorrectableErrorException e) {
+			throw new IllegalStateException(e); // decodeAlways never throws it
+		}
+	}
+
+	/**
+	 * Deinterleaves the remaining bytes of the code buffer, decodes them like decodeIfUnique(BitSet, int),
+	 * and writes the plaintext to the plaintext buffer. The buffers can be heap or direct buffers.
+	 * @param codetext the binary input
+	 * @param plaintext the buffer that receives the plaintext
+	 * @throws java.nio.BufferOverflowException if the plaintext buffer does not have enough space,
+	 * 	in which case neither buffer is changed
+	 * @throws UncorrectableErrorException if a wrapped block has no uniquely best decoding,
+	 * 	in which case the positions are not changed
+	 */
+	@Override
+	public void decodeIfUnique(ByteBuffer codetext, ByteBuffer plaintext) throws UncorrectableErrorException {
+		decodeBuffer(codetext, plaintext, true);
+	}
+
+	/**
+	 * Decodes the remaining bytes of the code buffer into the plaintext buffer, one group of blocks at a time.
+	 * @param codetext the binary input
+	 * @param plaintext the buffer that receives the plaintext
+	 * @param checkIfUnique true to decode with decodeIfUnique of the wrapped code
+	 * @throws UncorrectableErrorException if checkIfUnique is true and a wrapped block has no uniquely best decoding
+	 */
+	private void decodeBuffer(ByteBuffer codetext, ByteBuffer plaintext, boolean checkIfUnique)
+			throws UncorrectableErrorException {
+		int numOfBlocks = countBlocks((long) codetext.remaining() * Byte.SIZE, this.length);
+		int plainBytes = AbstractBlockCode.reserve(plaintext, (long) numOfBlocks * this.dimension);
+		long inOffset = (long) codetext.position() * Byte.SIZE;
+		long outOffset = (long) plaintext.position() * Byte.SIZE;
+		int groupSize = Math.min(this.groupBlocks, numOfBlocks);
+		long[] in = new long[BitUtil.numOfWords((long) groupSize * this.length)];
+		long[] out = new long[BitUtil.numOfWords((long) groupSize * this.dimension)];
+
+		for (int b = ZERO; b < numOfBlocks; b += this.groupBlocks) {
+			int count = Math.min(this.groupBlocks, numOfBlocks - b);
+			long inBits = (long) count * this.length;
+			long outBits = (long) count * this.dimension;
+
+			BitUtil.copyBits(codetext, inOffset + (long) b * this.length, in, ZERO, inBits); // zeros after the limit
+			decodeBlocks(in, ZERO, inBits, out, ZERO, count, checkIfUnique);
+			BitUtil.copyBits(out, ZERO, plaintext, outOffset + (long) b * this.dimension, outBits);
+		}
+
+		codetext.position(codetext.limit());
+		plaintext.position(plaintext.position() + plainBytes);
+	}
+
+	/**
+	 * Encodes the blocks of a packed vector, one group at a time: the wrapped code encodes the messages of a group
+	 * into its code blocks, which are then interleaved into the output.
+	 * @param in the plaintext
+	 * @param inOffset the index of the first bit of the plaintext
+	 * @param inEnd the index after the last bit of the plaintext, the bits from which are read as zeros
+	 * @param out the array that receives the coded text
+	 * @param outOffset the index of the first bit of the coded text
+	 * @param numOfBlocks the number of interleaved blocks
+	 */
+	private void encodeBlocks(long[] in, long inOffset, long inEnd, long[] out, long outOffset, int numOfBlocks) {
+		int innerLength = this.code.getLength();
+		long[] blocks = new long[BitUtil.numOfWords((long) Math.min(this.groupBlocks, numOfBlocks) * this.length)];
+		long[] tile = new long[BitUtil.WORD_SIZE];
+
+		for (int b = ZERO; b < numOfBlocks; b += this.groupBlocks) {
+			int count = Math.min(this.groupBlocks, numOfBlocks - b);
+			long from = inOffset + (long) b * this.dimension;
+			int bits = count * this.dimension;
+
+			if (from + bits <= inEnd) {
+				this.code.encode(in, from, bits, blocks, ZERO);
+			} else { // the plaintext ends inside the group, so it is padded with zeros
+				long[] messages = new long[BitUtil.numOfWords(bits)];
+				BitUtil.copyBits(in, from, messages, ZERO, Math.max(0L, inEnd - from));
+				this.code.encode(messages, ZERO, bits, blocks, ZERO);
+			}
+
+			for (int i = ZERO; i < count; i++) {
+				// the rows of the matrix are the depth code blocks, and the columns are sent one after another
+				BitUtil.transpose(blocks, (long) i * this.length, this.depth, innerLength,
+						out, outOffset + (long) (b + i) * this.length, tile);
+			}
+		}
+	}
+
+	/**
+	 * Decodes the blocks of a packed vector, one group at a time: the blocks of a group are deinterleaved,
+	 * and the wrapped code decodes them into the output.
+	 * @param in the coded text
+	 * @param inOffset the index of the first bit of the coded text
+	 * @param inEnd the index after the last bit of the coded text, the bits from which are read as zeros
+	 * @param out the array that receives the plaintext
+	 * @param outOffset the index of the first bit of the plaintext
+	 * @param numOfBlocks the number of interleaved blocks
+	 * @param checkIfUnique true to decode with decodeIfUnique of the wrapped code
+	 * @throws UncorrectableErrorException if checkIfUnique is true and a wrapped block has no uniquely best decoding
+	 */
+	private void decodeBlocks(long[] in, long inOffset, long inEnd, long[] out, long outOffset, int numOfBlocks,
+			boolean checkIfUnique) throws UncorrectableErrorException {
+		long[] blocks = new long[BitUtil.numOfWords((long) Math.min(this.groupBlocks, numOfBlocks) * this.length)];
+		long[] tile = new long[BitUtil.WORD_SIZE];
+
+		for (int b = ZERO; b < numOfBlocks; b += this.groupBlocks) {
+			int count = Math.min(this.groupBlocks, numOfBlocks - b);
+			int bits = count * this.length;
+			long to = outOffset + (long) b * this.dimension;
+
+			deinterleave(in, inOffset + (long) b * this.length, inEnd, blocks, count, tile);
+
+			if (checkIfUnique) {
+				this.code.decodeIfUnique(blocks, ZERO, bits, out, to);
+			} else {
+				this.code.decodeAlways(blocks, ZERO, bits, out, to);
+			}
+		}
+	}
+
+	/**
+	 * Deinterleaves a group of blocks, so that the wrapped blocks are stored one after another.
+	 * @param in the coded text
+	 * @param from the index of the first bit of the group
+	 * @param inEnd the index after the last bit of the coded text, the bits from which are read as zeros
+	 * @param blocks the array that receives the wrapped blocks of the group
+	 * @param count the number of interleaved blocks in the group
+	 * @param tile the working array of the transpose
+	 */
+	private void deinterleave(long[] in, long from, long inEnd, long[] blocks, int count, long[] tile) {
+		long bits = (long) count * this.length;
+		long[] source = in;
+		long start = from;
+
+		if (from + bits > inEnd) { // the coded text ends inside the group, so it is padded with zeros
+			source = new long[BitUtil.numOfWords(bits)];
+			start = ZERO;
+			BitUtil.copyBits(in, from, source, ZERO, Math.max(0L, inEnd - from));
+		}
+
+		for (int i = ZERO; i < count; i++) {
+			// the rows of the interleaved block are its columns of the depth code blocks
+			BitUtil.transpose(source, start + (long) i * this.length, this.code.getLength(), this.depth,
+					blocks, (long) i * this.length, tile);
+		}
+	}
+
+	/**
+	 * Counts the blocks that a vector of the given length is padded to, where an empty vector has no blocks.
+	 * @param len the length of the vector
+	 * @param blockSize the number of bits in each block
+	 * @return the number of blocks
+	 */
+	private static int countBlocks(long len, int blockSize) {
+		return (int) ((len + blockSize - 1) / blockSize);
+	}
+
+	/**
+	 * Returns the suitable string that identifies this instance.
+	 * @return identifying string
+	 */
+	public String toString() {
+		return "<Interleaved: " + this.code + ", depth(" + this.depth + "), length(" + this.length
+				+ "), dimension(" + this.dimension + ")>";
+	}
+}
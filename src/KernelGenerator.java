@@ -0,0 +1,467 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The generator of the BlockKernel classes, which writes the bytecode of a class for the matrices of a code
+ * and defines it as a hidden class with MethodHandles.Lookup.defineHiddenClass.
+ *
+ * The encoder is unrolled in one of two forms, whichever has fewer terms. The row form adds the row i of the
+ * generator matrix when the message bit i is set: c ^= -(m >>> i & 1) & ROW_i. The parity form moves the message bits
+ * that are copied to the code (grouped by their shift) and sets every other code bit j to its parity equation:
+ * c |= (m & MASK_d) << d, and c |= (long) (Long.bitCount(m & COLUMN_j) & 1) << j.
+ * The syndrome is unrolled in the parity form, with one equation per row of H.
+ * The methods have no branches, so the class file needs no stack map frames.
+ *
+ * The kernels are used by the codes that the factory makes, and the loops of the codes are the fallback:
+ * if the system property ecc.kernel.generate is false, or if the class cannot be defined, no kernel is made.
+ *
+ * @author 160021429
+ */
+final class KernelGenerator {
+	/**
+	 * True unless the system property ecc.kernel.generate is set to false.
+	 */
+	static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("ecc.kernel.generate", "true"));
+
+	private static final int CLASS_VERSION = 52; // the class file of Java 8, which needs no stack map frames without branches
+
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+	private static final int ICONST_1 = 0x04;
+	private static final int LCONST_0 = 0x09;
+	private static final int LCONST_1 = 0x0a;
+	private static final int BIPUSH = 0x10;
+	private static final int LDC2_W = 0x14;
+	private static final int LLOAD_1 = 0x1f;
+	private static final int LLOAD_3 = 0x21;
+	private static final int ALOAD_0 = 0x2a;
+	private static final int LSTORE_3 = 0x42;
+	private static final int LNEG = 0x75;
+	private static final int LSHL = 0x79;
+	private static final int LUSHR = 0x7d;
+	private static final int IAND = 0x7e;
+	private static final int LAND = 0x7f;
+	private static final int LOR = 0x81;
+	private static final int LXOR = 0x83;
+	private static final int I2L = 0x85;
+	private static final int LRETURN = 0xad;
+	private static final int RETURN = 0xb1;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int INVOKESTATIC = 0xb8;
+
+	private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+	private final DataOutputStream poolOut = new DataOutputStream(this.pool);
+	private final Map<String, Integer> entries = new HashMap<>();
+	private int poolSize = 1; // the index of the next constant (the constant 0 does not exist)
+
+	/**
+	 * The private constructor, as a generator writes a single class.
+	 */
+	private KernelGenerator() {
+	}
+
+	/**
+	 * Makes the kernel of a code, whose encodeBlock method must already work.
+	 * The rows of the generator matrix are found by encoding the unit vectors, like the slicer does.
+	 * @param code the code, of length 64 or less
+	 * @param parityRows the rows of the parity check matrix, one word per row
+	 * @param checks the number of rows of the parity check matrix
+	 * @return the kernel, or null if the kernels are disabled, the code is too long, or the class cannot be defined
+	 */
+	static BlockKernel forCode(AbstractBlockCode code, long[] parityRows, int checks) {
+		int dimension = code.getDimension();
+		int length = code.getLength();
+
+		if (!ENABLED || dimension <= 0 || length > BitUtil.WORD_SIZE) {
+			return null;
+		}
+
+		long[] rows = new long[dimension];
+		long[] message = new long[1];
+		long[] block = new long[1];
+
+		for (int i = 0; i < dimension; i++) {
+			message[0] = 1L << i;
+			code.encodeBlock(message, block);
+			rows[i] = block[0];
+		}
+
+		try {
+			byte[] bytes = new KernelGenerator().writeClass(rows, length, parityRows, checks);
+			Class<?> kernelClass = MethodHandles.lookup().defineHiddenClass(bytes, true).lookupClass();
+
+			return (BlockKernel) kernelClass.getDeclaredConstructor().newInstance();
+		} catch (IOException | ReflectiveOperationException | LinkageError | RuntimeException e) {
+			return null; // the loops of the code are used instead
+		}
+	}
+
+	/**
+	 * Writes the class file of a kernel.
+	 * @param rows the rows of the generator matrix
+	 * @param length the length of the code
+	 * @param parityRows the rows of the parity check matrix
+	 * @param checks the number of rows of the parity check matrix
+	 * @return the class file
+	 * @throws IOException never, as the class is written to memory
+	 */
+	private byte[] writeClass(long[] rows, int length, long[] parityRows, int checks) throws IOException {
+		int thisClass = classConstant("BlockKernelImpl");
+		int superClass = classConstant("java/lang/Object");
+		int kernelInterface = classConstant("BlockKernel");
+		int objectInit = methodConstant("java/lang/Object", "<init>", "()V");
+		int bitCount = methodConstant("java/lang/Long", "bitCount", "(J)I");
+		int code = utf8Constant("Code");
+
+		// the constructor
+		ByteArrayOutputStream init = new ByteArrayOutputStream();
+		init.write(ALOAD_0);
+		writeWithIndex(init, INVOKESPECIAL, objectInit);
+		init.write(RETURN);
+
+		// the encoder
+		ByteArrayOutputStream encode = new ByteArrayOutputStream();
+		encode.write(LCONST_0);
+		encode.write(LSTORE_3);
+		if (countRowTerms(rows) <= countParityTerms(rows, length)) {
+			writeRowForm(encode, rows);
+		} else {
+			writeParityForm(encode, rows, length, bitCount);
+		}
+		encode.write(LLOAD_3);
+		encode.write(LRETURN);
+
+		// the syndrome
+		ByteArrayOutputStream syndrome = new ByteArrayOutputStream();
+		syndrome.write(LCONST_0);
+		syndrome.write(LSTORE_3);
+		for (int x = 0; x < checks; x++) {
+			writeParityEquation(syndrome, parityRows[x], x, bitCount);
+		}
+		syndrome.write(LLOAD_3);
+		syndrome.write(LRETURN);
+
+		int initName = utf8Constant("<init>");
+		int initType = utf8Constant("()V");
+		int encodeName = utf8Constant("encode");
+		int syndromeName = utf8Constant("syndrome");
+		int longToLong = utf8Constant("(J)J");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(CLASS_VERSION);
+		out.writeShort(this.poolSize);
+		this.poolOut.flush();
+		this.pool.writeTo(out);
+
+		out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+		out.writeShort(thisClass);
+		out.writeShort(superClass);
+		out.writeShort(1);
+		out.writeShort(kernelInterface);
+		out.writeShort(0); // no fields
+		out.writeShort(3);
+		writeMethod(out, initName, initType, code, init.toByteArray(), 1, 1);
+		writeMethod(out, encodeName, longToLong, code, encode.toByteArray(), 4, 5);
+		writeMethod(out, syndromeName, longToLong, code, syndrome.toByteArray(), 4, 5);
+		out.writeShort(0); // no attributes
+
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Counts the terms of the row form of the encoder.
+	 * @param rows the rows of the generator matrix
+	 * @return the number of nonzero rows
+	 */
+	private static int countRowTerms(long[] rows) {
+		int terms = 0;
+
+		for (long row : rows) {
+			if (row != 0L) {
+				terms++;
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Counts the terms of the parity form of the encoder.
+	 * @param rows the rows of the generator matrix
+	 * @param length the length of the code
+	 * @return the number of shifts of copied message bits and of parity equations
+	 */
+	private static int countParityTerms(long[] rows, int length) {
+		long[] shifts = new long[2]; // the bit d + 64 is set if a message bit is copied with the shift d
+		int terms = 0;
+
+		for (int j = 0; j < length; j++) {
+			long column = column(rows, j);
+
+			if (column == 0L) {
+				continue;
+			}
+			if (Long.bitCount(column) == 1) {
+				int d = j - Long.numberOfTrailingZeros(column) + BitUtil.WORD_SIZE;
+				shifts[d >>> 6] |= 1L << d;
+			} else {
+				terms++;
+			}
+		}
+		return terms + Long.bitCount(shifts[0]) + Long.bitCount(shifts[1]);
+	}
+
+	/**
+	 * Returns a column of the generator matrix.
+	 * @param rows the rows of the generator matrix
+	 * @param j the index of the column
+	 * @return the column, where the bit i is the bit j of the row i
+	 */
+	private static long column(long[] rows, int j) {
+		long column = 0L;
+
+		for (int i = 0; i < rows.length; i++) {
+			column |= (rows[i] >>> j & 1L) << i;
+		}
+		return column;
+	}
+
+	/**
+	 * Writes the row form of the encoder: c ^= -(m >>> i & 1) & ROW_i for every nonzero row.
+	 * @param code the bytecode
+	 * @param rows the rows of the generator matrix
+	 */
+	private void writeRowForm(ByteArrayOutputStream code, long[] rows) throws IOException {
+		for (int i = 0; i < rows.length; i++) {
+			if (rows[i] == 0L) {
+				continue;
+			}
+
+			code.write(LLOAD_1);
+			if (i > 0) {
+				code.write(BIPUSH);
+				code.write(i);
+				code.write(LUSHR);
+			}
+			code.write(LCONST_1);
+			code.write(LAND);
+			code.write(LNEG);
+			writeWithIndex(code, LDC2_W, longConstant(rows[i]));
+			code.write(LAND);
+			code.write(LLOAD_3);
+			code.write(LXOR);
+			code.write(LSTORE_3);
+		}
+	}
+
+	/**
+	 * Writes the parity form of the encoder, where the copied message bits are moved by groups of the same shift,
+	 * and every other code bit is a parity equation.
+	 * @param code the bytecode
+	 * @param rows the rows of the generator matrix
+	 * @param length the length of the code
+	 * @param bitCount the constant of Long.bitCount
+	 */
+	private void writeParityForm(ByteArrayOutputStream code, long[] rows, int length, int bitCount) throws IOException {
+		long[] masks = new long[2 * BitUtil.WORD_SIZE]; // masks[d + 64] selects the message bits that move by d
+
+		for (int j = 0; j < length; j++) {
+			long column = column(rows, j);
+
+			if (column == 0L) {
+				continue;
+			}
+			if (Long.bitCount(column) == 1) {
+				masks[j - Long.numberOfTrailingZeros(column) + BitUtil.WORD_SIZE] |= column;
+			} else {
+				writeParityEquation(code, column, j, bitCount);
+			}
+		}
+
+		for (int d = 0; d < masks.length; d++) {
+			if (masks[d] == 0L) {
+				continue;
+			}
+
+			int shift = d - BitUtil.WORD_SIZE;
+
+			code.write(LLOAD_1);
+			writeWithIndex(code, LDC2_W, longConstant(masks[d]));
+			code.write(LAND);
+			if (shift != 0) {
+				code.write(BIPUSH);
+				code.write(Math.abs(shift));
+				code.write((shift > 0) ? LSHL : LUSHR);
+			}
+			code.write(LLOAD_3);
+			code.write(LOR);
+			code.write(LSTORE_3);
+		}
+	}
+
+	/**
+	 * Writes a parity equation: c |= (long) (Long.bitCount(m & MASK) & 1) << bit.
+	 * @param code the bytecode
+	 * @param mask the bits of the equation
+	 * @param bit the bit of the result that receives the parity
+	 * @param bitCount the constant of Long.bitCount
+	 */
+	private void writeParityEquation(ByteArrayOutputStream code, long mask, int bit, int bitCount) throws IOException {
+		code.write(LLOAD_1);
+		writeWithIndex(code, LDC2_W, longConstant(mask));
+		code.write(LAND);
+		writeWithIndex(code, INVOKESTATIC, bitCount);
+		code.write(ICONST_1);
+		code.write(IAND);
+		code.write(I2L);
+		if (bit > 0) {
+			code.write(BIPUSH);
+			code.write(bit);
+			code.write(LSHL);
+		}
+		code.write(LLOAD_3);
+		code.write(LOR);
+		code.write(LSTORE_3);
+	}
+
+	/**
+	 * Writes an instruction with a 2-byte index.
+	 * @param code the bytecode
+	 * @param opcode the instruction
+	 * @param index the index of the constant
+	 */
+	private static void writeWithIndex(ByteArrayOutputStream code, int opcode, int index) {
+		code.write(opcode);
+		code.write(index >>> 8);
+		code.write(index);
+	}
+
+	/**
+	 * Writes a public method with a Code attribute.
+	 * @param out the class file
+	 * @param name the constant of the name
+	 * @param type the constant of the descriptor
+	 * @param codeName the constant of the name of the Code attribute
+	 * @param code the bytecode
+	 * @param maxStack the largest depth of the operand stack
+	 * @param maxLocals the number of local variable slots
+	 */
+	private static void writeMethod(DataOutputStream out, int name, int type, int codeName, byte[] code,
+			int maxStack, int maxLocals) throws IOException {
+		out.writeShort(ACC_PUBLIC);
+		out.writeShort(name);
+		out.writeShort(type);
+		out.writeShort(1);
+
+		out.writeShort(codeName);
+		out.writeInt(12 + code.length);
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(code.length);
+		out.write(code);
+		out.writeShort(0); // no exception handlers
+		out.writeShort(0); // no attributes
+	}
+
+	/**
+	 * Adds a UTF-8 constant, or finds the one that was already added.
+	 * @param value the string, which is ASCII
+	 * @return the index of the constant
+	 */
+	private int utf8Constant(String value) throws IOException {
+		Integer index = this.entries.get("U" + value);
+
+		if (index == null) {
+			this.poolOut.writeByte(CONSTANT_UTF8);
+			this.poolOut.writeUTF(value);
+			index = add("U" + value, 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Adds a class constant.
+	 * @param name the internal name of the class
+	 * @return the index of the constant
+	 */
+	private int classConstant(String name) throws IOException {
+		int nameIndex = utf8Constant(name);
+		Integer index = this.entries.get("C" + name);
+
+		if (index == null) {
+			this.poolOut.writeByte(CONSTANT_CLASS);
+			this.poolOut.writeShort(nameIndex);
+			index = add("C" + name, 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Adds a method reference constant.
+	 * @param owner the internal name of the class of the method
+	 * @param name the name of the method
+	 * @param type the descriptor of the method
+	 * @return the index of the constant
+	 */
+	private int methodConstant(String owner, String name, String type) throws IOException {
+		int ownerIndex = classConstant(owner);
+		int nameIndex = utf8Constant(name);
+		int typeIndex = utf8Constant(type);
+
+		this.poolOut.writeByte(CONSTANT_NAME_AND_TYPE);
+		this.poolOut.writeShort(nameIndex);
+		this.poolOut.writeShort(typeIndex);
+		int nameAndType = add("N" + owner + "." + name + type, 1);
+
+		this.poolOut.writeByte(CONSTANT_METHODREF);
+		this.poolOut.writeShort(ownerIndex);
+		this.poolOut.writeShort(nameAndType);
+		return add("M" + owner + "." + name + type, 1);
+	}
+
+	/**
+	 * Adds a long constant, or finds the one that was already added.
+	 * @param value the value
+	 * @return the index of the constant
+	 */
+	private int longConstant(long value) throws IOException {
+		Integer index = this.entries.get("J" + value);
+
+		if (index == null) {
+			this.poolOut.writeByte(CONSTANT_LONG);
+			this.poolOut.writeLong(value);
+			index = add("J" + value, 2); // a long takes two indices
+		}
+		return index;
+	}
+
+	/**
+	 * Records a constant that was written to the pool.
+	 * @param key the key of the constant
+	 * @param slots the number of indices that the constant takes
+	 * @return the index of the constant
+	 */
+	private int add(String key, int slots) {
+		int index = this.poolSize;
+
+		this.entries.put(key, index);
+		this.poolSize += slots;
+		return index;
+	}
+}
@@ -0,0 +1,340 @@
+import java.util.Arrays;
+
+/**
+ * The class for any binary linear code, which is made from its generator matrix or its parity check matrix.
+ *
+ * The matrix is reduced and converted to the standard form G = [I | A] by the routines of MatrixOperation,
+ * so the code is stored like the Reed Muller code: the message bits are the first bits of a code block,
+ * and the columns of the standard form are a permutation of the columns of the given matrix (getColumnOrder).
+ * A generator matrix that is already in the standard form keeps its column order, and encodes m to m x G.
+ *
+ * The codes of length 64 or less with at most SyndromeTable.MAX_SYNDROME_BITS parity check bits are decoded
+ * with a syndrome table, which is filled weight by weight until every syndrome has a coset leader,
+ * so that every block is decoded to a closest codeword. The other codes correct single errors by finding the column
+ * of H that is equal to the syndrome, and report the other nonzero syndromes as uncorrectable.
+ *
+ * @author 160021429
+ */
+public class LinearCode extends AbstractBlockCode {
+	private final int ZERO = 0;
+	private final int ONE = 1;
+	private final int length;
+	private final int dimension;
+	private final int words; // the number of 64-bit words in a code block
+	private final int[] columns; // columns[j] is the column of the given matrix that the position j comes from
+	private final long[] generator; // rows of the generator matrix in the standard form, packed into words rows of 64-bit words
+	private final long[] parityChecks; // rows of the parity check matrix H, packed into words rows of 64-bit words
+	private final int numOfChecks; // the number of rows of H
+	private final SyndromeTable syndrome; // the syndrome table of the short codes, or null
+	private final long[] singleErrors; // the sorted columns of H of the other codes, which are the syndromes of single errors
+	private final int[] singlePositions; // singlePositions[i] is the position of the error whose syndrome is singleErrors[i]
+	private final LutEncoder lut; // the table-driven encoder of the longer codes, or null if the tables exceed the budget
+	private final BitSlicer slicer; // the bit-sliced mode of the codes of length 64 or less, or null
+
+	/**
+	 * The constructor that makes the code from a generator matrix in the standard form.
+	 * The fields never change afterwards, so an instance can be shared by any number of threads.
+	 * @param g the generator matrix [I | A]
+	 * @param columns the column of the given matrix that each column of g comes from
+	 */
+	private LinearCode(BitMatrix g, int[] columns) {
+		this.length = g.getColumns();
+		this.dimension = g.getRows();
+		this.words = g.getWords();
+		this.columns = columns;
+		this.generator = g.getData();
+		this.numOfChecks = this.length - this.dimension;
+
+		if (this.numOfChecks > BitUtil.WORD_SIZE) {
+			throw new IllegalArgumentException("A linear code supports up to " + BitUtil.WORD_SIZE
+					+ " parity check bits, not " + this.numOfChecks);
+		}
+
+		BitMatrix h = MatrixOperation.generateH(g);
+		this.parityChecks = h.getData();
+
+		long[] transposed = h.transpose().getData();
+		long[] columnsOfH = new long[this.length]; // columnsOfH[j] is the syndrome of a single error at the position j
+
+		for (int j = ZERO; j < this.length && this.numOfChecks > ZERO; j++) {
+			columnsOfH[j] = transposed[j];
+		}
+
+		if (this.length <= BitUtil.WORD_SIZE && this.numOfChecks <= SyndromeTable.MAX_SYNDROME_BITS) {
+			int[] rows = new int[this.length];
+
+			for (int j = ZERO; j < this.length; j++) {
+				rows[j] = (int) columnsOfH[j];
+			}
+
+			this.syndrome = MatrixOperation.getSyndrome(this.length, rows, this.numOfChecks);
+			this.singleErrors = null;
+			this.singlePositions = null;
+		} else {
+			long[] keys = new long[this.length];
+			Integer[] order = new Integer[this.length];
+
+			for (int j = ZERO; j < this.length; j++) {
+				order[j] = j;
+			}
+			// the signed order of Arrays.binarySearch, as the syndromes of 64 checks use the sign bit
+			Arrays.sort(order, (a, b) -> Long.compare(columnsOfH[a], columnsOfH[b]));
+
+			int[] positions = new int[this.length];
+			for (int i = ZERO; i < this.length; i++) {
+				keys[i] = columnsOfH[order[i]];
+				positions[i] = order[i];
+			}
+
+			this.syndrome = null;
+			this.singleErrors = keys;
+			this.singlePositions = positions;
+		}
+
+		this.lut = (this.words > ONE) // the one-word codes already XOR the few rows of the set bits
+				? LutEncoder.forRows(this.generator, this.dimension, this.words, LutEncoder.DEFAULT_BUDGET) : null;
+		this.slicer = BitSlicer.forCode(this); // the codes of length 64 or less encode and check 64 blocks at once
+	}
+
+	/**
+	 * Makes the code that is spanned by the rows of a generator matrix.
+	 * @param generator the generator matrix of 0 and 1 values, whose rows must be linearly independent
+	 * @return the code
+	 * @throws IllegalArgumentException if the matrix is empty or not rectangular, if its rows are linearly dependent,
+	 * or if the code has more than 64 parity check bits
+	 */
+	public static LinearCode fromGenerator(int[][] generator) {
+		BitMatrix g = toBitMatrix(generator);
+		int rank = g.reduce();
+
+		if (rank < g.getRows()) {
+			throw new IllegalArgumentException("The rows of the generator matrix are linearly dependent: rank "
+					+ rank + " of " + g.getRows());
+		}
+
+		int[] columns = identity(g.getColumns());
+		MatrixOperation.convertToStandardForm(g.getColumns(), rank, g, columns);
+
+		return new LinearCode(g, columns);
+	}
+
+	/**
+	 * Makes the code whose codewords are the vectors that every row of a parity check matrix is orthogonal to.
+	 * The rows of H may be linearly dependent, in which case the code has n - rank(H) message bits.
+	 * @param parityCheck the parity check matrix of 0 and 1 values
+	 * @return the code
+	 * @throws IllegalArgumentException if the matrix is empty or not rectangular, if the code has no message bits,
+	 * or if the code has more than 64 parity check bits
+	 */
+	public static LinearCode fromParityCheck(int[][] parityCheck) {
+		BitMatrix h = toBitMatrix(parityCheck);
+		int length = h.getColumns();
+		int checks = h.reduce();
+		int dimension = length - checks;
+
+		if (dimension <= 0) {
+			throw new IllegalArgumentException("The parity check matrix has full rank, so the code has no message bits");
+		}
+
+		int[] columnsOfH = identity(length);
+		MatrixOperation.convertToStandardForm(length, checks, h, columnsOfH); // H = [I | B]
+
+		// G = [I | B^T], where the message positions are the last columns of H and the checks are the first columns
+		BitMatrix g = new BitMatrix(dimension, length);
+		int[] columns = new int[length];
+
+		for (int i = 0; i < dimension; i++) {
+			g.set(i, i);
+			columns[i] = columnsOfH[checks + i];
+
+			for (int p = 0; p < checks; p++) {
+				if (h.get(p, checks + i)) {
+					g.set(i, dimension + p);
+				}
+			}
+		}
+		for (int p = 0; p < checks; p++) {
+			columns[dimension + p] = columnsOfH[p];
+		}
+
+		return new LinearCode(g, columns);
+	}
+
+	/**
+	 * Packs a matrix of 0 and 1 values.
+	 * @param matrix the matrix
+	 * @return the packed matrix
+	 * @throws IllegalArgumentException if the matrix is empty or not rectangular
+	 */
+	private static BitMatrix toBitMatrix(int[][] matrix) {
+		if (matrix == null || matrix.length == 0 || matrix[0].length == 0) {
+			throw new IllegalArgumentException("The matrix is empty");
+		}
+		for (int[] row : matrix) {
+			if (row.length != matrix[0].length) {
+				throw new IllegalArgumentException("The rows of the matrix have different lengths");
+			}
+		}
+		return BitMatrix.fromArray(matrix);
+	}
+
+	/**
+	 * Makes the identity permutation.
+	 * @param length the number of columns
+	 * @return the array where every column is mapped to itself
+	 */
+	private static int[] identity(int length) {
+		int[] columns = new int[length];
+
+		for (int j = 0; j < length; j++) {
+			columns[j] = j;
+		}
+		return columns;
+	}
+
+	@Override
+	BitSlicer getSlicer() {
+		return this.slicer;
+	}
+
+	/**
+	 * The getter of the length attribute.
+	 *
+	 * @return the length of the code, the number of bits in each encoded block
+	 */
+	@Override
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * The getter of the attribute dimension.
+	 *
+	 * @return the dimension of the code, the number of bits in each plain-text block
+	 */
+	@Override
+	public int getDimension() {
+		return this.dimension;
+	}
+
+	/**
+	 * Returns the column order of the code blocks.
+	 * @return a new array, where the element j is the column of the given matrix that the bit j of a code block is
+	 */
+	public int[] getColumnOrder() {
+		return this.columns.clone();
+	}
+
+	/**
+	 * Encodes a single block with the generator matrix in the standard form.
+	 * @param text the plain text bits of the block
+	 * @param code the array that receives the code bits of the block
+	 */
+	@Override
+	protected void encodeBlock(long[] text, long[] code) {
+		if (this.words == ONE) {
+			long bits = text[ZERO];
+			long sum = 0L;
+
+			while (bits != 0L) {
+				sum ^= generator[Long.numberOfTrailingZeros(bits)]; // add the row of the lowest set bit
+				bits &= bits - ONE;
+			}
+
+			code[ZERO] = sum;
+			return;
+		}
+
+		if (this.lut != null) {
+			lut.encode(text, code); // a table load per 4 or 8 message bits
+			return;
+		}
+
+		Gf2Kernel.INSTANCE.combineRows(text, generator, this.dimension, this.words, code);
+	}
+
+	/**
+	 * Decodes a single block with the syndrome table, or by correcting a single error.
+	 * @param code the code bits of the block
+	 * @param text the array that receives the plain text bits of the block
+	 * @return CLEAN, CORRECTED, or UNCORRECTABLE if the error vector is unknown or not unique
+	 */
+	@Override
+	protected int decodeBlock(long[] code, long[] text) {
+		long sVector = syndromeOf(code);
+
+		if (this.syndrome != null) {
+			text[ZERO] = (code[ZERO] ^ syndrome.leader((int) sVector)) & BitUtil.lowMask(this.dimension); //the code is in the standard form
+
+			if (sVector == 0L) {
+				return CLEAN;
+			}
+			if (!syndrome.isKnown((int) sVector) || syndrome.isAmbiguous((int) sVector)) {
+				return UNCORRECTABLE; //unknown syndromes have no leader, so the block is left as it is
+			}
+			return CORRECTED;
+		}
+
+		if (sVector == 0L) {
+			extractMessage(code, text);
+			return CLEAN;
+		}
+
+		int status = UNCORRECTABLE;
+		int i = Arrays.binarySearch(this.singleErrors, sVector);
+
+		if (i >= ZERO) {
+			boolean unique = (i == ZERO || singleErrors[i - ONE] != sVector)
+					&& (i == singleErrors.length - ONE || singleErrors[i + ONE] != sVector);
+
+			if (unique) {
+				int position = singlePositions[i];
+				code[position >>> 6] ^= 1L << position;
+				status = CORRECTED;
+			}
+		}
+
+		extractMessage(code, text);
+		return status;
+	}
+
+	/**
+	 * Multiplies H and a block.
+	 * @param code the code bits of the block
+	 * @return the syndrome, where the bit x is the parity of the row x of H and the block
+	 */
+	private long syndromeOf(long[] code) {
+		if (this.numOfChecks == ZERO) {
+			return 0L;
+		}
+		return Gf2Kernel.INSTANCE.rowParities(code, this.parityChecks, ZERO, this.numOfChecks, this.words);
+	}
+
+	/**
+	 * Checks if a block is a codeword, by multiplying H and the block, so that the clean blocks skip the decoder.
+	 * @param code the code bits of the block
+	 * @return true if the syndrome is zero
+	 */
+	@Override
+	protected boolean isCodeword(long[] code) {
+		return syndromeOf(code) == 0L;
+	}
+
+	/**
+	 * Copies the message bits out of a block, which are its first bits as the code is in the standard form.
+	 * @param code the code bits of the block
+	 * @param text the array that the plain text bits are written to
+	 */
+	@Override
+	protected void extractMessage(long[] code, long[] text) {
+		BitUtil.copyBits(code, ZERO, text, ZERO, this.dimension);
+	}
+
+	/**
+	 * Returns the suitable string that identifies this instance.
+	 * @return identifying string
+	 */
+	public String toString() {
+		return "<Linear code: length(" + this.length + "), dimension(" + this.dimension + ")>";
+	}
+}
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+
+/**
+ * The table-driven encoder of a linear code, which encodes a block a chunk of message bits at a time.
+ *
+ * As the code is linear, a codeword is the XOR of the codewords of the chunks of its message,
+ * so the encoder precomputes the codeword of every value of every chunk, and encoding a block is then
+ * one table load and XOR per chunk instead of one per message bit.
+ * The tables are built from the images of the unit vectors, which are the rows of the generator matrix.
+ *
+ * The chunks are 8 bits (256 entries per chunk) if the tables fit in the memory budget, and 4 bits (16 entries per chunk)
+ * otherwise, which is 16 times smaller for twice the number of loads. The budget should be about the size
+ * of the cache that the tables are meant to stay in; it is set with the system property ecc.lut.budget (in bytes).
+ *
+ * @author 160021429
+ */
+final class LutEncoder {
+	/**
+	 * The memory budget of the tables of a code in bytes, which is 256 KiB unless the system property ecc.lut.budget is set.
+	 */
+	static final long DEFAULT_BUDGET = Long.getLong("ecc.lut.budget", 256L << 10);
+
+	private final int chunkBits; // the number of message bits of a chunk (4 or 8), which divides 64
+	private final int chunks;
+	private final int words; // the number of words of an image
+	private final long[] table; // the image of the value v of the chunk c is at ((c << chunkBits) | v) * words
+
+	/**
+	 * The constructor of the encoder, which builds the tables from the rows of the generator matrix.
+	 * @param rows the images of the unit vectors, each packed into words words
+	 * @param dimension the number of rows
+	 * @param words the number of words of an image
+	 * @param chunkBits the number of message bits of a chunk (4 or 8)
+	 */
+	private LutEncoder(long[] rows, int dimension, int words, int chunkBits) {
+		this.chunkBits = chunkBits;
+		this.chunks = (dimension + chunkBits - 1) / chunkBits;
+		this.words = words;
+		this.table = new long[(this.chunks << chunkBits) * words];
+
+		int entries = 1 << chunkBits;
+
+		for (int c = 0; c < this.chunks; c++) {
+			for (int v = 1; v < entries; v++) {
+				int entry = ((c << chunkBits) | v) * words;
+				int rest = ((c << chunkBits) | (v & (v - 1))) * words; // the entry without the lowest bit of v
+				int bit = c * chunkBits + Integer.numberOfTrailingZeros(v);
+
+				for (int w = 0; w < words; w++) {
+					// the bits after the dimension select no row, so stray bits of a message are ignored
+					this.table[entry + w] = this.table[rest + w] ^ ((bit < dimension) ? rows[bit * words + w] : 0L);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes the encoder of a linear map, with the largest chunks whose tables fit in the budget.
+	 * @param rows the images of the unit vectors (the rows of the generator matrix), each packed into words words
+	 * @param dimension the number of rows, which is the number of message bits
+	 * @param words the number of words of an image
+	 * @param budget the memory budget of the tables in bytes
+	 * @return the encoder, or null if even the tables of 4-bit chunks do not fit in the budget
+	 */
+	static LutEncoder forRows(long[] rows, int dimension, int words, long budget) {
+		if (dimension <= 0) {
+			return null;
+		}
+		budget = Math.min(budget, (long) Integer.MAX_VALUE); // the tables are indexed by int
+
+		if (tableBytes(dimension, words, 8) <= budget) {
+			return new LutEncoder(rows, dimension, words, 8);
+		}
+		if (tableBytes(dimension, words, 4) <= budget) {
+			return new LutEncoder(rows, dimension, words, 4);
+		}
+		return null;
+	}
+
+	/**
+	 * Calculates the size of the tables of a linear map.
+	 * @param dimension the number of message bits
+	 * @param words the number of words of an image
+	 * @param chunkBits the number of message bits of a chunk
+	 * @return the size in bytes
+	 */
+	static long tableBytes(int dimension, int words, int chunkBits) {
+		long chunks = (dimension + chunkBits - 1) / chunkBits;
+		return (chunks << chunkBits) * words * Long.BYTES;
+	}
+
+	/**
+	 * Encodes a single block.
+	 * @param message the message bits of the block
+	 * @param code the array that the image is written to, whose first words words are overwritten
+	 */
+	void encode(long[] message, long[] code) {
+		int mask = (1 << this.chunkBits) - 1;
+
+		Arrays.fill(code, 0, this.words, 0L);
+
+		for (int c = 0, bit = 0; c < this.chunks; c++, bit += this.chunkBits) {
+			int value = (int) (message[bit >>> 6] >>> bit) & mask; // a chunk never crosses a word
+
+			if (value != 0) {
+				int entry = ((c << this.chunkBits) | value) * this.words;
+
+				for (int w = 0; w < this.words; w++) {
+					code[w] ^= this.table[entry + w];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a description of the encoder.
+	 * @return the chunk size and the size of the tables
+	 */
+	@Override
+	public String toString() {
+		return "<LUT encoder: chunk(" + this.chunkBits + " bits), tables(" + (long) this.table.length * Long.BYTES + " bytes)>";
+	}
+}
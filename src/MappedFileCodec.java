@@ -0,0 +1,264 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The file-level encoder and decoder, which memory-maps the input and output files.
+ *
+ * The files use the same format as EccOutputStream and EccInputStream: units of 8 blocks, and a padded last unit.
+ * The files are mapped in windows of at most WINDOW_SIZE bytes, so files larger than 2 GB are supported,
+ * and each window is split into regions that are encoded or decoded in parallel,
+ * straight from the input mapping into the output mapping with the ByteBuffer methods of the code.
+ *
+ * @author 160021429
+ */
+public class MappedFileCodec {
+	/**
+	 * The maximum number of bytes of a mapped window.
+	 */
+	static final int WINDOW_SIZE = 1 << 30;
+
+	/**
+	 * The approximate number of plain text bytes in a region that is processed by one task.
+	 */
+	static final int REGION_SIZE = 1 << 20;
+
+	private final IECC code;
+	private final Executor executor;
+	private final int unitSize; // the number of plain text bytes in a unit of 8 blocks
+	private final int codeUnitSize; // the number of code bytes in a unit of 8 blocks
+	private final int regionUnits; // the number of units in a region
+	private final int windowUnits; // the number of units in a window (a multiple of regionUnits)
+
+	/**
+	 * The constructor that processes the regions on the common ForkJoinPool.
+	 * @param code the code
+	 */
+	public MappedFileCodec(IECC code) {
+		this(code, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * The constructor that processes the regions on the given executor.
+	 * @param code the code
+	 * @param executor the executor that runs the region tasks
+	 */
+	public MappedFileCodec(IECC code, Executor executor) {
+		if (code.getDimension() <= 0) {
+			throw new IllegalArgumentException("Cannot encode with " + code);
+		}
+
+		this.code = code;
+		this.executor = executor;
+		this.unitSize = code.getDimension();
+		this.codeUnitSize = code.getLength();
+		this.regionUnits = Math.max(1, REGION_SIZE / this.unitSize);
+
+		int largest = Math.max(this.unitSize, this.codeUnitSize) * this.regionUnits;
+		this.windowUnits = Math.max(1, WINDOW_SIZE / largest) * this.regionUnits;
+	}
+
+	/**
+	 * Encodes the source file into the target file, which is replaced if it exists.
+	 * @param source the file of plain text
+	 * @param target the file that receives the coded text
+	 * @return the number of bytes of the target file
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public long encode(Path source, Path target) throws IOException {
+		try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+				FileChannel out = open(target)) {
+			long size = in.size();
+			long units = size / this.unitSize; // the whole units, the last unit is padded separately
+
+			processWindows(in, out, units, this.unitSize, this.codeUnitSize, false);
+
+			// pad the last unit, and encode it on the heap
+			byte[] last = new byte[this.unitSize];
+			int tail = (int) (size - units * this.unitSize);
+
+			readFully(in, ByteBuffer.wrap(last, 0, tail), units * this.unitSize);
+			last[tail] = (byte) EccOutputStream.PADDING_MARKER;
+
+			byte[] encoded = new byte[this.codeUnitSize];
+			transform(ByteBuffer.wrap(last), ByteBuffer.wrap(encoded), this.unitSize, false);
+			writeFully(out, ByteBuffer.wrap(encoded), units * this.codeUnitSize);
+
+			return (units + 1) * this.codeUnitSize;
+		} catch (UncorrectableErrorException e) {
+			throw new IllegalStateException(e); // encoding never throws it
+		}
+	}
+
+	/**
+	 * Decodes the source file into the target file with decodeAlways. The target file is replaced if it exists.
+	 * @param source the file of coded text
+	 * @param target the file that receives the plain text
+	 * @return the number of bytes of the target file
+	 * @throws IOException if a file cannot be read or written, or the coded text is corrupt
+	 */
+	public long decode(Path source, Path target) throws IOException {
+		try {
+			return decode(source, target, false);
+		} catch (UncorrectableErrorException e) {
+			throw new IllegalStateException(e); // decodeAlways never throws it
+		}
+	}
+
+	/**
+	 * Decodes the source file into the target file. The target file is replaced if it exists.
+	 * @param source the file of coded text
+	 * @param target the file that receives the plain text
+	 * @param checkIfUnique true to decode with decodeIfUnique
+	 * @return the number of bytes of the target file
+	 * @throws IOException if a file cannot be read or written, or the coded text is corrupt
+	 * @throws UncorrectableErrorException if checkIfUnique is true and a block does not have a unique closest codeword
+	 */
+	public long decode(Path source, Path target, boolean checkIfUnique) throws IOException, UncorrectableErrorException {
+		try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+				FileChannel out = open(target)) {
+			long size = in.size();
+
+			if (size == 0 || size % this.codeUnitSize != 0) {
+				throw new IOException("The coded text does not consist of whole blocks");
+			}
+
+			long units = size / this.codeUnitSize - 1; // the last unit is padded, so it is decoded separately
+
+			processWindows(in, out, units, this.codeUnitSize, this.unitSize, checkIfUnique);
+
+			byte[] last = new byte[this.codeUnitSize];
+			readFully(in, ByteBuffer.wrap(last), units * this.codeUnitSize);
+
+			byte[] decoded = new byte[this.unitSize];
+			transform(ByteBuffer.wrap(last), ByteBuffer.wrap(decoded), this.codeUnitSize, checkIfUnique);
+			int index = decoded.length - 1;
+
+			while (index >= 0 && decoded[index] == 0) {
+				index--;
+			}
+			if (index < 0 || (decoded[index] & 0xFF) != EccOutputStream.PADDING_MARKER) {
+				throw new IOException("The coded text does not end with a valid padding");
+			}
+
+			writeFully(out, ByteBuffer.wrap(decoded, 0, index), units * this.unitSize);
+
+			return units * this.unitSize + index;
+		}
+	}
+
+	/**
+	 * Encodes or decodes the given number of units, window by window.
+	 * @param in the input file
+	 * @param out the output file
+	 * @param units the number of units
+	 * @param inUnitSize the number of input bytes in a unit
+	 * @param outUnitSize the number of output bytes in a unit
+	 * @param checkIfUnique true to decode with decodeIfUnique, false to decode with decodeAlways
+	 * @throws IOException if a file cannot be mapped
+	 * @throws UncorrectableErrorException if checkIfUnique is true and a block does not have a unique closest codeword
+	 */
+	private void processWindows(FileChannel in, FileChannel out, long units, int inUnitSize, int outUnitSize,
+			boolean checkIfUnique) throws IOException, UncorrectableErrorException {
+		for (long start = 0; start < units; start += this.windowUnits) {
+			int count = (int) Math.min(this.windowUnits, units - start);
+
+			MappedByteBuffer input = in.map(FileChannel.MapMode.READ_ONLY, start * inUnitSize, (long) count * inUnitSize);
+			MappedByteBuffer output = out.map(FileChannel.MapMode.READ_WRITE, start * outUnitSize, (long) count * outUnitSize);
+
+			int numOfRegions = (count + this.regionUnits - 1) / this.regionUnits;
+			CompletableFuture<?>[] futures = new CompletableFuture<?>[numOfRegions];
+
+			for (int i = 0; i < numOfRegions; i++) {
+				int from = i * this.regionUnits;
+				int n = Math.min(this.regionUnits, count - from);
+
+				futures[i] = CompletableFuture.runAsync(() -> {
+					try {
+						transform(input.slice(from * inUnitSize, n * inUnitSize),
+								output.slice(from * outUnitSize, n * outUnitSize), inUnitSize, checkIfUnique);
+					} catch (UncorrectableErrorException e) {
+						throw new CompletionException(e);
+					}
+				}, this.executor);
+			}
+
+			try {
+				CompletableFuture.allOf(futures).join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof UncorrectableErrorException) {
+					throw (UncorrectableErrorException) e.getCause();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Encodes or decodes a whole number of units from the input buffer into the output buffer.
+	 * @param input the input units
+	 * @param output the buffer that receives the output units
+	 * @param inUnitSize the number of input bytes in a unit (the dimension for encoding, the length for decoding)
+	 * @param checkIfUnique true to decode with decodeIfUnique, false to decode with decodeAlways
+	 * @throws UncorrectableErrorException if checkIfUnique is true and a block does not have a unique closest codeword
+	 */
+	private void transform(ByteBuffer input, ByteBuffer output, int inUnitSize, boolean checkIfUnique)
+			throws UncorrectableErrorException {
+		if (inUnitSize == this.unitSize) {
+			this.code.encode(input, output);
+		} else if (checkIfUnique) {
+			this.code.decodeIfUnique(input, output);
+		} else {
+			this.code.decodeAlways(input, output);
+		}
+	}
+
+	/**
+	 * Opens the target file, replacing it if it exists.
+	 * @param target the target file
+	 * @return the channel of the target file
+	 * @throws IOException if the file cannot be opened
+	 */
+	private static FileChannel open(Path target) throws IOException {
+		return FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Reads the channel at the given position until the buffer is full.
+	 * @param channel the channel
+	 * @param buffer the buffer
+	 * @param position the position in the file
+	 * @throws IOException if the file ends before the buffer is full
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position);
+
+			if (n < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+			position += n;
+		}
+	}
+
+	/**
+	 * Writes the whole buffer to the channel at the given position.
+	 * @param channel the channel
+	 * @param buffer the buffer
+	 * @param position the position in the file
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+}
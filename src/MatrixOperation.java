@@ -1,8 +1,8 @@
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * This class contains the matrix operation methods for the Reed Muller code.
+ * This class contains the matrix operation methods for the Reed Muller code and the other linear codes.
  *
  * @author 160021429
  */
@@ -11,6 +11,16 @@ public class MatrixOperation {
 	private static final int ONE = 1;
 	private static final int TWO = 2;
 
+	/**
+	 * The smallest number of error vectors of a weight that are added to the syndrome table in parallel.
+	 */
+	private static final long PARALLEL_COMBINATIONS = 1L << 16;
+
+	/**
+	 * The largest number of error vectors that the syndrome table of a code with an unknown distance is built from.
+	 */
+	private static final long MAX_ERROR_VECTORS = 1L << 24;
+
 	/**
 	 * The aim of this method is to generate the generator matrix for the Reed Muller code.
 	 *
@@ -20,55 +30,91 @@ public class MatrixOperation {
 	 * @param length the length of the reed muller code
 	 * @return g the generator matrix
 	 */
-	static int[][] generateG(int k, int r, int dimension, int length) {
-		int[][] g = new int[dimension][length];
+	static BitMatrix generateG(int k, int r, int dimension, int length) {
+		return generateG(k, r, dimension, length, new int[length]);
+	}
+
+	/**
+	 * The aim of this method is to generate the generator matrix for the Reed Muller code,
+	 * and to record which evaluation point each column of the standard form belongs to.
+	 * The rows are packed into words, so the matrix is converted to the normal form with word-level row additions.
+	 *
+	 * @param k the value k of ReedMuller(k, r)
+	 * @param r the value r of ReedMuller(k, r)
+	 * @param dimension the dimension of the reed muller code
+	 * @param length the length of the reed muller code
+	 * @param columns the array that receives the original column index of each column of the generator matrix
+	 * @return g the generator matrix
+	 */
+	static BitMatrix generateG(int k, int r, int dimension, int length, int[] columns) {
+		BitMatrix g = new BitMatrix(dimension, length);
+
+		for (int i = ZERO; i < length; i++) {
+			columns[i] = i;
+		}
 
 		for (int i = ZERO; i < length; i++) {
-			g[ZERO][i] = ONE;
+			g.set(ZERO, i);
 		}
 
 		if (r > ZERO) {
-			int limit = k - ONE;
 			int row = ONE;
 
 			for (int i = ONE; i <= r; i++) {
-				ArrayList<ArrayList<Integer>> list = makeCombinition(limit, i);
-
-				for (int j = ZERO; j < list.size(); j++) { //use for loop to iterate the array list of combinations.
-					ArrayList<Integer> integers = list.get(j);
-
-					for (int x = ZERO; x < length; x++) { //for loop for S(C)
-						boolean checker = true;
+				Combinations combinations = new Combinations(k, i);
 
-						for (int y = ZERO; y < integers.size(); y++) {
-							int val = (int) Math.pow(TWO, integers.get(y));
+				while (combinations.next()) { //iterate the combinations of i variables out of the k variables
+					int monomial = ZERO;
 
-							if ((val & x) == ZERO) {
-								checker = false;
-								break;
-							}
-						}
+					for (int y = ZERO; y < combinations.size(); y++) {
+						monomial |= ONE << combinations.get(y);
+					}
 
-						if (checker) {
-							g[row][x] = ONE;
+					for (int x = ZERO; x < length; x++) { //for loop for S(C)
+						if ((monomial & x) == monomial) {
+							g.set(row, x);
 						}
 					}
 					row += ONE; //change the row
-				} //for loop (which is for iterating ArrayList<ArrayList<Integer>> list) ends
+				} //while loop (which is for iterating the combinations) ends
 
 			} // the outer for loop ends
 
 			//convert the generator matrix to the normal form
-			MatrixOperation.convertToNormalForm(dimension, length, g);
+			g.reduce();
 
 			//convert the generator matrix to the standard form
-			MatrixOperation.convertToStandardForm(length, dimension, g);
+			MatrixOperation.convertToStandardForm(length, dimension, g, columns);
 
 		} //if statement ends
 
 		return g;
 	}
 
+	/**
+	 * The aim of this method is to generate the parity check matrix H = [A^T | I] of a generator matrix G = [I | A]
+	 * in the standard form.
+	 * @param g the generator matrix in the standard form
+	 * @return h the parity check matrix
+	 */
+	static BitMatrix generateH(BitMatrix g) {
+		int dimension = g.getRows();
+		int length = g.getColumns();
+		BitMatrix columnsOfG = g.transpose(); //the row j is the column j of g
+		BitMatrix h = new BitMatrix(length - dimension, length);
+
+		for (int j = ZERO; j < length - dimension; j++) {
+			for (int i = ZERO; i < dimension; i++) {
+				if (columnsOfG.get(dimension + j, i)) {
+					h.set(j, i);
+				}
+			}
+			h.set(j, dimension + j);
+		}
+
+		return h;
+	}
+
 	/**
 	 * The aim of this method is to swap 2 columns.
 	 * @param i1 index of the first column
@@ -91,6 +137,18 @@ public class MatrixOperation {
 	 * @param g the generator matrix
 	 */
 	public static void convertToStandardForm(int length, int dimension, int[][] g) {
+		convertToStandardForm(length, dimension, g, new int[length]);
+	}
+
+	/**
+	 * The aim of this method is to convert the generator matrix to the standard form,
+	 * and to apply the same column swaps to the given array of column indices.
+	 * @param length the length of the code
+	 * @param dimension the dimension of the code
+	 * @param g the generator matrix
+	 * @param columns the column indices, which are swapped along with the columns of g
+	 */
+	public static void convertToStandardForm(int length, int dimension, int[][] g, int[] columns) {
 		for (int i = ZERO; i < dimension; i++) {
 			if (g[i][i] != ONE) {
 				int col = i + ONE;
@@ -104,68 +162,197 @@ public class MatrixOperation {
 				}
 
 				swapCol(col, i, dimension, g); //swap the columns
+
+				int temp = columns[col];
+				columns[col] = columns[i];
+				columns[i] = temp;
+			}
+		}
+	}
+
+	/**
+	 * The aim of this method is to convert a packed generator matrix in the normal form to the standard form,
+	 * and to apply the same column swaps to the given array of column indices.
+	 * @param length the length of the code
+	 * @param dimension the dimension of the code
+	 * @param g the generator matrix
+	 * @param columns the column indices, which are swapped along with the columns of g
+	 */
+	static void convertToStandardForm(int length, int dimension, BitMatrix g, int[] columns) {
+		for (int i = ZERO; i < dimension; i++) {
+			if (!g.get(i, i)) {
+				int col = i + ONE;
+
+				while (col < length && !g.get(i, col)) {
+					col += ONE;
+				}
+
+				g.swapColumns(col, i); //swap the columns
+
+				int temp = columns[col];
+				columns[col] = columns[i];
+				columns[i] = temp;
 			}
 		}
 	}
 
 	/**
 	 * The aim of this method is to generate the syndrome table.
+	 * The syndrome of an error vector is the XOR of the syndromes of its error positions, so the error vectors
+	 * of each weight are visited in the revolving-door order, where each syndrome is found from the previous one
+	 * with 2 XORs. The weights with many error vectors are split across the common ForkJoinPool by their highest position.
+	 * @param length the length of the code (64 or less)
+	 * @param distance the minimum distance of the code
+	 * @param rows rows[j] is the syndrome of a single error at the position j (the row j of the parity check matrix)
+	 * @param syndromeBits the number of bits in a syndrome
+	 * @return the syndrome table
 	 */
-	static void getSyndrome(int length, int distance, int[][] h, HashMap<Integer, ArrayList<Integer>> syndrome) {
-		int numOfCols_H = h[ZERO].length;
+	static SyndromeTable getSyndrome(int length, int distance, int[] rows, int syndromeBits) {
+		SyndromeTable syndrome = new SyndromeTable(syndromeBits, length);
 		int numOfMaxError = (distance - ONE) / TWO;
-		int limit = length - ONE;
 
+		//the weights are added one after another, so that the coset leaders have the lowest weight
 		for (int x = ONE; x <= numOfMaxError; x++) {
-			//make the combinations to generate error bits
-			ArrayList<ArrayList<Integer>> combinations = makeCombinition(length - ONE, x);
+			addWeight(syndrome, rows, length, x);
+		}
 
-			for (int i = ZERO; i < combinations.size(); i++) {
-				int eVector = 0;
-				int[] e = new int[length];
+		return syndrome;
+	}
 
-				ArrayList<Integer> c = combinations.get(i);
+	/**
+	 * The aim of this method is to generate the syndrome table of a code whose minimum distance is not known.
+	 * The error vectors are added weight by weight until every syndrome has a coset leader (the covering radius),
+	 * so that every block is decoded to a closest codeword, or until the next weight has more than
+	 * MAX_ERROR_VECTORS error vectors in total, where the syndromes without a leader are left uncorrectable.
+	 * @param length the length of the code (64 or less)
+	 * @param rows rows[j] is the syndrome of a single error at the position j (the column j of the parity check matrix)
+	 * @param syndromeBits the number of bits in a syndrome
+	 * @return the syndrome table
+	 */
+	static SyndromeTable getSyndrome(int length, int[] rows, int syndromeBits) {
+		SyndromeTable syndrome = new SyndromeTable(syndromeBits, length);
+		long errorVectors = ZERO;
 
-				for (int j = ZERO; j < c.size(); j++) {
-					int err = ONE << (limit - c.get(j));
-					eVector += err;
-					e[c.get(j)] = ONE;
-				}
+		for (int x = ONE; x <= length && syndrome.countKnown() < (ONE << syndromeBits); x++) {
+			errorVectors += countCombinations(length, x);
 
-				int sVector = ZERO;
+			if (errorVectors > MAX_ERROR_VECTORS) {
+				break;
+			}
+			addWeight(syndrome, rows, length, x);
+		}
 
-				for (int y = ZERO; y < numOfCols_H; y++) {
-					int xor = ZERO;
+		return syndrome;
+	}
 
-					for (int z = ZERO; z < h.length; z++) {
-						xor ^= (h[z][y] & e[z]); //calculate the syndrome by multiplying error vector and parity check matrix
-					}
+	/**
+	 * Adds all error vectors of a weight to the syndrome table, in parallel if there are many of them.
+	 * @param syndrome the syndrome table
+	 * @param rows rows[j] is the syndrome of a single error at the position j
+	 * @param length the length of the code
+	 * @param weight the number of errors
+	 */
+	private static void addWeight(SyndromeTable syndrome, int[] rows, int length, int weight) {
+		if (countCombinations(length, weight) >= PARALLEL_COMBINATIONS && ForkJoinPool.getCommonPoolParallelism() > ONE) {
+			ForkJoinPool.commonPool().invoke(new SyndromeTask(syndrome, rows, weight, weight - ONE, length));
+		} else {
+			addErrors(syndrome, rows, length, weight, -ONE);
+		}
+	}
 
-					sVector <<= 1;
-					sVector += xor;
-				}
+	/**
+	 * Adds the error vectors that have the given number of errors among the first positions,
+	 * and optionally one more error at a fixed position, to the syndrome table.
+	 * @param syndrome the syndrome table
+	 * @param rows rows[j] is the syndrome of a single error at the position j
+	 * @param positions the number of positions to choose the errors from (0 to positions - 1)
+	 * @param errors the number of errors among these positions
+	 * @param fixed the fixed error position, which is at least positions, or -1 if there is none
+	 */
+	private static void addErrors(SyndromeTable syndrome, int[] rows, int positions, int errors, int fixed) {
+		RevolvingDoor door = new RevolvingDoor(positions, errors);
 
-				ArrayList<Integer> list;
+		if (!door.next()) {
+			return;
+		}
 
-				//check if the syndrome table already has same integer array as a key
-				if (syndrome.containsKey(sVector)) {
-					list = syndrome.get(sVector);
-				} else {
-					list = new ArrayList<>();
-				}
+		int sVector = (fixed < ZERO) ? ZERO : rows[fixed];
+		long e = (fixed < ZERO) ? 0L : 1L << fixed;
 
-				list.add(eVector);
-				syndrome.put(sVector, list); //add a new row to the syndrome table
-			}
+		for (int j = ZERO; j < door.size(); j++) {
+			sVector ^= rows[door.get(j)];
+			e |= 1L << door.get(j);
+		}
+		syndrome.add(sVector, e); //add a new row to the syndrome table
+
+		while (door.next()) {
+			int removed = door.removed();
+			int added = door.added();
+
+			sVector ^= rows[removed] ^ rows[added]; //one error moves from the removed position to the added position
+			e ^= (1L << removed) | (1L << added);
+			syndrome.add(sVector, e);
+		}
+	}
+
+	/**
+	 * Counts the combinations n_C_k, up to Long.MAX_VALUE.
+	 * @param n for n_C_k
+	 * @param k for n_C_k
+	 * @return the number of combinations
+	 */
+	private static long countCombinations(int n, int k) {
+		long count = ONE;
 
+		for (int i = ZERO; i < k; i++) {
+			if (count > Long.MAX_VALUE / (n - i)) {
+				return Long.MAX_VALUE;
+			}
+			count = count * (n - i) / (i + ONE);
 		}
 
-		// add the all zero row to the syndrome table
-		ArrayList<Integer> list = new ArrayList<>();
-		list.add(ZERO);
+		return count;
+	}
+
+	/**
+	 * The task that adds the error vectors of a weight whose highest error position is in a range.
+	 * The ranges are split in halves, and each highest position m adds m_C_(weight - 1) error vectors.
+	 */
+	private static final class SyndromeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final SyndromeTable syndrome;
+		private final int[] rows;
+		private final int weight;
+		private final int from;
+		private final int to;
+
+		/**
+		 * The constructor of the task.
+		 * @param syndrome the syndrome table
+		 * @param rows rows[j] is the syndrome of a single error at the position j
+		 * @param weight the number of errors
+		 * @param from the first highest error position of the range (inclusive)
+		 * @param to the last highest error position of the range (exclusive)
+		 */
+		SyndromeTask(SyndromeTable syndrome, int[] rows, int weight, int from, int to) {
+			this.syndrome = syndrome;
+			this.rows = rows;
+			this.weight = weight;
+			this.from = from;
+			this.to = to;
+		}
 
-		syndrome.put(ZERO, list);
+		@Override
+		protected void compute() {
+			if (to - from == ONE) {
+				addErrors(syndrome, rows, from, weight - ONE, from);
+				return;
+			}
 
+			int mid = (from + to) >>> ONE;
+			invokeAll(new SyndromeTask(syndrome, rows, weight, from, mid), new SyndromeTask(syndrome, rows, weight, mid, to));
+		}
 	}
 
 	/**
@@ -222,44 +409,4 @@ public class MatrixOperation {
 		}
 	}
 
-	/**
-	 * The aim of this method is to make the combinations for the Reed Muller code.
-	 * @param n for n_C_k
-	 * @param k for n_C_k
-	 * @return the array list that contains the all combinations.
-	 */
-	static ArrayList<ArrayList<Integer>> makeCombinition(int n, int k) {
-		ArrayList<ArrayList<Integer>> result = new ArrayList<ArrayList<Integer>>();
-
-		if (n < ZERO || n < k) { //check if the n is in the correct range
-			return result; //if not, return the empty list
-		}
-
-		ArrayList<Integer> item = new ArrayList<Integer>();
-		findCombinations(n, k, ZERO, item, result);
-
-		return result;
-	}
-
-	/**
-	 * Find all combinations and add them in the array list.
-	 * @param n for n_C_k
-	 * @param k for n_C_k
-	 * @param start the starting number
-	 * @param item the array list for the combination
-	 * @param res the array list that contains all combinations (the result of this method)
-	 */
-	static void findCombinations(int n, int k, int start, ArrayList<Integer> item, ArrayList<ArrayList<Integer>> res) {
-		if (item.size() == k) {
-			res.add(new ArrayList<Integer>(item));
-			return;
-		}
-
-		for (int i = start; i <= n; i++) {
-			item.add(i);
-			findCombinations(n, k, i + ONE, item, res);
-			item.remove(item.size() - ONE);
-		}
-	}
-
 }
@@ -1,90 +1,128 @@
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.HashMap;
+import java.util.concurrent.Executor;
 
 /**
  * The class for the Reed Muller code.
  * @author 160021429
  */
-public class ReedMullerCode implements IECC {
+public class ReedMullerCode extends AbstractBlockCode {
 	private final int ZERO = 0;
 	private final int ONE = 1;
 	private final int TWO = 2;
-	private boolean invalid;
-	private int length;
-	private int distance;
-	private int dimension;
-	private int[][] g; // generator matrix
-	private int[][] h; // parity check matrix
-	private HashMap<Integer, ArrayList<Integer>> syndrome = new HashMap<>();
+	private final boolean invalid;
+	private final int length;
+	private final int distance;
+	private final int dimension;
+	private final int words; // the number of 64-bit words in a code block
+	private final long[] generator; // rows of the generator matrix, packed into words rows of 64-bit words
+	private final long[] parityChecks; // rows of the parity check matrix H, packed into words rows of 64-bit words
+	private final int numOfChecks; // the number of rows of H
+	private final SyndromeTable syndrome;
+	private final ReedMullerTables tables; // the precomputed tables, which the fields above are taken from
+	private final ReedMullerDecoder decoder; // the table-free decoder, which is null if the syndrome table is used
+	private final LutEncoder lut; // the table-driven encoder of the longer codes, or null if the tables exceed the budget
+	private final BlockKernel kernel; // the generated parity equations of the codes of length 64 or less, or null
+	private final BitSlicer slicer; // the bit-sliced mode of the codes of length 64 or less, or null
 
 	/**
 	 * The aim of this constructor is to precompute the generator matrix, parity check matrix, and the syndrome table.
+	 * If the syndrome table would be too large, the table-free majority-logic decoder is used instead.
 	 * @param k the value k for RM(k, r)
 	 * @param r the value r for RM(k, r)
 	 */
 	public ReedMullerCode(int k, int r) {
-		if (k >= r && r >= ZERO) {
-			this.length = (int) Math.pow(TWO, k);         //length of the code = 2^k
-			this.distance = (int) Math.pow(TWO, (k - r)); //minimum distance = 2^(k-r)
-			this.dimension = calculateDimension(k, r);
-
-			g = MatrixOperation.generateG(k, r, this.dimension, this.length); // generate the generator matrix
-
-			int parityMatrixLength = this.length - this.dimension; //calculate the number of columns in the parity check matrix
-
-			// generate the parity check matrix H
-			h = new int[this.length][parityMatrixLength];
-
-			// set the correct values to the parity check matrix
+		this(k, r, false);
+	}
 
-			for (int i = ZERO; i < this.dimension; i++) {
-				for (int j = ZERO; j < parityMatrixLength; j++) {
-					h[i][j] = g[i][this.dimension + j];
-				}
-			}
+	/**
+	 * The aim of this constructor is to precompute the generator matrix, and either the syndrome table
+	 * or the table-free majority-logic decoder.
+	 * The syndrome table is indexed by the syndrome, so it is only built for codes of length 64 or less
+	 * that have at most SyndromeTable.MAX_SYNDROME_BITS parity check bits; the majority-logic decoder is used otherwise.
+	 * The majority-logic decoder needs no table and supports any length.
+	 * @param k the value k for RM(k, r)
+	 * @param r the value r for RM(k, r)
+	 * @param majorityLogic true to decode with the majority-logic decoder instead of the syndrome table
+	 */
+	public ReedMullerCode(int k, int r, boolean majorityLogic) {
+		this((k >= r && r >= 0) ? ReedMullerTables.build(k, r, majorityLogic) : null);
+	}
 
-			// append the identity matrix at the bottom of the parity check matrix
-			for (int i = ZERO; i < parityMatrixLength; i++) {
-				h[i + this.dimension][i] = ONE;
-			}
+	/**
+	 * The constructor that makes the code from tables that were already built, or loaded from a snapshot.
+	 * The fields and the tables never change afterwards, so an instance can be shared by any number of threads.
+	 * @param tables the tables of the code, or null if the parameters are wrong
+	 */
+	ReedMullerCode(ReedMullerTables tables) {
+		this(tables, false);
+	}
 
-			MatrixOperation.getSyndrome(this.length, this.distance, h, syndrome); // generate the syndrome table
+	/**
+	 * The constructor that can also generate a kernel class for the parity equations of the codes of length 64 or less,
+	 * which the factory does for the codes that it caches.
+	 * @param tables the tables of the code, or null if the parameters are wrong
+	 * @param specialize true to generate the kernel, where the loops are kept as the fallback
+	 */
+	ReedMullerCode(ReedMullerTables tables, boolean specialize) {
+		this.tables = tables;
+
+		if (tables != null) {
+			this.invalid = false;
+			this.length = tables.length;
+			this.distance = (int) Math.pow(TWO, (tables.k - tables.r)); //minimum distance = 2^(k-r)
+			this.dimension = tables.dimension;
+			this.words = BitUtil.numOfWords(this.length);
+			this.generator = tables.generator;
+			this.parityChecks = tables.parityChecks;
+			this.numOfChecks = this.length - this.dimension;
+			this.syndrome = tables.syndrome;
+			this.lut = (this.words > ONE) // the one-word codes already XOR the few rows of the set bits
+					? LutEncoder.forRows(this.generator, this.dimension, this.words, LutEncoder.DEFAULT_BUDGET) : null;
+			this.decoder = (this.syndrome == null)
+					? new ReedMullerDecoder(tables.k, tables.r, this.dimension, tables.columns) : null;
+
+			this.kernel = (specialize && this.words == ONE)
+					? KernelGenerator.forCode(this, this.parityChecks, this.numOfChecks) : null;
+			this.slicer = BitSlicer.forCode(this); // the codes of length 64 or less encode and check 64 blocks at once
 
 		} else {
 			System.out.println("Wrong parameter: 0 <= r <= k");
 			this.invalid = true;
+			this.length = ZERO;
+			this.distance = ZERO;
+			this.dimension = ZERO;
+			this.words = ZERO;
+			this.generator = null;
+			this.parityChecks = null;
+			this.numOfChecks = ZERO;
+			this.syndrome = null;
+			this.decoder = null;
+			this.slicer = null;
+			this.lut = null;
+			this.kernel = null;
 		}
 	}
 
+	@Override
+	BitSlicer getSlicer() {
+		return this.slicer;
+	}
+
 	/**
-	 * This method calculates the dimension of the current reed muller code instance.
-	 *
-	 * @param k the number k of the reed muller code RM(k, r)
-	 * @param r the number r of the reed muller code RM(k, r)
-	 * @return the dimension of the current reed muller code instance.
+	 * Checks if the code corrects any error, which decodeIfUnique needs in all of its overloads.
+	 * @return false if the minimum distance 2^(k-r) is 2 or less
 	 */
-	private int calculateDimension(int k, int r) {
-		int sum = ONE;
-
-		for (int i = ONE; i <= r; i++) {
-			if (i != ONE) {
-				int limit = k - i;
-				int temp = k;
-
-				for (int j = k - 1; j > limit; j--) {
-					temp *= j;
-				}
-
-				for (int j = TWO; j <= i; j++) {
-					temp /= j;
-				}
-				sum += temp;
-			} else {
-				sum += k;
-			}
-		}
-		return sum;
+	@Override
+	boolean correctsErrors() {
+		return (distance - ONE) / TWO != ZERO; //the code instance could not correct any error otherwise
+	}
+
+	/**
+	 * The getter of the precomputed tables, which are written to the snapshot files.
+	 * @return the tables, or null if the code is invalid
+	 */
+	ReedMullerTables getTables() {
+		return this.tables;
 	}
 
 	/**
@@ -108,150 +146,123 @@ public class ReedMullerCode implements IECC {
 	}
 
 	/**
-	 * This method encodes the given bit set with the generator matrix, which is precomputed.
+	 * This method encodes a single block with the generator matrix, which is precomputed.
+	 * The code block is the XOR of the packed generator rows that are selected by the set bits of the plain text block;
+	 * the blocks of more than one word are added up by the GF(2) kernel.
 	 *
-	 * @param plaintext the plain text that should be encoded
-	 * @param len the length of the plain text
-	 * @return encoded bit set
+	 * @param text the plain text bits of the block
+	 * @param code the array that receives the code bits of the block
 	 */
 	@Override
-	public BitSet encode(BitSet plaintext, int len) {
-		if (this.invalid) {
-			System.out.println("Cannot encode with this instance!");
-			return plaintext;
+	protected void encodeBlock(long[] text, long[] code) {
+		if (this.kernel != null) {
+			code[ZERO] = kernel.encode(text[ZERO]);
+			return;
 		}
 
-		int numOfBlocks = (len > this.dimension) ? (
-				(len % this.dimension == ZERO) ? len / this.dimension : len / this.dimension + ONE
-			) : ONE;
-
-		int totalLength = this.length * numOfBlocks;
-
-		BitSet encoded = new BitSet(totalLength);
+		if (this.words == ONE) {
+			long bits = text[ZERO];
+			long sum = 0L;
 
-		int nonZero = plaintext.nextSetBit(ZERO);
-		int blockCount = ZERO;
-		int index = ZERO;
-
-		for (int i = 0; i < numOfBlocks; i++) {
-			int[] text = new int[this.dimension]; //an integer array to store bits of the plain text in it
-
-			for (int j = 0; j < this.dimension; j++) {
-				if ((j + index) == nonZero) { //check if the current index is a non zero bit.
-					text[j] = ONE;
-					nonZero = plaintext.nextSetBit(nonZero + 1);
-				}
+			while (bits != 0L) {
+				sum ^= generator[Long.numberOfTrailingZeros(bits)]; // add the row of the lowest set bit
+				bits &= bits - ONE;
 			}
 
-			int sum = 0;
-
-			for (int x = 0; x < this.length; x++) {
-				for (int y = 0; y < this.dimension; y++) {
-					int val = g[y][x] * text[y]; // multiply the plain text and generator matrix
-					sum = sum ^ val;
-				}
+			code[ZERO] = sum;
+			return;
+		}
 
-				if (sum != ZERO) {
-					encoded.set(x + blockCount);
-				}
-				sum = ZERO; //reset the value of sum to 0
-			}
-			blockCount += this.length;
-			index += this.dimension;
+		if (this.lut != null) {
+			lut.encode(text, code); // a table load per 4 or 8 message bits
+			return;
 		}
 
-		return encoded;
+		Gf2Kernel.INSTANCE.combineRows(text, generator, this.dimension, this.words, code);
 	}
 
 	/**
-	 * This method decodes the given codes by using the precomputed parity check matrix and syndrome table.
-	 * @param codetext the code that should be decoded
-	 * @param len the length of the code
-	 * @param checkIfUnique True if the decode() should check if the error correction could be done uniquely.
-	 * @return decoded bit set
+	 * This method decodes a single block by using the precomputed parity check matrix and syndrome table,
+	 * or the majority-logic decoder, which is skipped if the product of H and the block shows that it is a codeword.
+	 * @param code the code bits of the block
+	 * @param text the array that receives the plain text bits of the block
+	 * @return CLEAN, CORRECTED, or UNCORRECTABLE if the error vector is unknown or not unique
 	 */
-	private BitSet decode(BitSet codetext, int len, boolean checkIfUnique) {
-		if (this.invalid) {
-			System.out.println("Cannot decode with this instance!");
-			return codetext;
+	@Override
+	protected int decodeBlock(long[] code, long[] text) {
+		if (this.decoder != null) {
+			return decoder.decode(code, text); //the codewords have already taken the fast path of the decoder
 		}
 
-		int numOfBlocks = (len > this.length) ? (
-				(len % this.length != 0) ? (len / this.length) + 1 : (len / this.length)
-			) : 1;
-
-		int totalLength = this.dimension * numOfBlocks;
-
-		BitSet decoded = new BitSet(totalLength);
+		long bits = code[ZERO];
 
-		int index = ZERO;
-		int nonZero = codetext.nextSetBit(ZERO);
-		int blockCount = ZERO;
-
-		for (int i = 0; i < numOfBlocks; i++) {
-			int[] code = new int[this.length];
-
-			for (int j = 0; j < this.length; j++) {
-				if ((j + blockCount) == nonZero) { //check if the current index is a non zero bit.
-					code[j] = ONE;
-					nonZero = codetext.nextSetBit(nonZero + 1);
-				}
+		// multiply H and code to get the syndrome
+		int sVector = ZERO;
+		if (this.kernel != null) {
+			sVector = (int) kernel.syndrome(bits);
+		} else {
+			for (int x = ZERO; x < this.numOfChecks; x++) {
+				sVector |= (Long.bitCount(bits & parityChecks[x]) & ONE) << x;
 			}
+		}
 
-			int sVector = 0;
-
-			// multiply H and code to get the syndrome
-			for (int x = ZERO; x < h[ZERO].length; x++) {
-				int xor = ZERO;
-				for (int y = ZERO; y < this.length; y++) {
-					xor ^= (code[y] * h[y][x]);
-				}
+		text[ZERO] = (bits ^ syndrome.leader(sVector)) & BitUtil.lowMask(this.dimension); //the code is in the standard form
 
-				sVector <<= 1;
-				sVector += xor;
-			}
-
-			ArrayList<Integer> syndromes = syndrome.get(sVector);
-			if (checkIfUnique) {
-				int numOfMaxError = (distance - ONE) / TWO;
+		if (sVector == ZERO) {
+			return CLEAN;
+		}
+		if (!syndrome.isKnown(sVector) || syndrome.isAmbiguous(sVector)) {
+			return UNCORRECTABLE; //unknown syndromes have no leader, so the block is left as it is
+		}
+		return CORRECTED;
+	}
 
-				if (numOfMaxError == ZERO) {
-					return null; //if the current code instance could not correct any error, return null
-				}
+	/**
+	 * Checks if a block is a codeword, by multiplying H and the block, so that the clean blocks skip the decoder.
+	 * @param code the code bits of the block
+	 * @return true if the syndrome is zero
+	 */
+	@Override
+	protected boolean isCodeword(long[] code) {
+		if (this.kernel != null) {
+			return kernel.syndrome(code[ZERO]) == 0L;
+		}
 
-				if (syndromes.size() > ONE) {
-					return null; //if there are more than one error vectors that has same syndrome value, return null
-				}
-			}
+		for (int row = ZERO; row < this.numOfChecks; row += BitUtil.WORD_SIZE) {
+			int count = Math.min(BitUtil.WORD_SIZE, this.numOfChecks - row);
 
-			try {
-				//correct the errors to get the closest code
-				int e = syndromes.get(ZERO);
-				int limit = this.length - 1;
-
-				for (int j = ZERO; j < this.length; j++) {
-					int val = ONE << (limit - j);
-
-					if ((val & e) != ZERO) {
-						code[j] ^= ONE;
-					}
-				}
-			} catch (NullPointerException e) {
-				//If the RM code instance could correct 0 error, NullPointerException might be occurred.
-				e.getMessage();
+			if (Gf2Kernel.INSTANCE.rowParities(code, this.parityChecks, row, count, this.words) != 0L) {
+				return false;
 			}
+		}
+		return true;
+	}
 
-			for (int j = ZERO; j < this.dimension; j++) {
-				if (code[j] != ZERO) {
-					decoded.set(j + index);
-				}
-			}
+	/**
+	 * Copies the message bits out of a codeword, which are its first bits as the code is in the standard form.
+	 * @param code the code bits of the codeword
+	 * @param text the array that the plain text bits are written to
+	 */
+	@Override
+	protected void extractMessage(long[] code, long[] text) {
+		BitUtil.copyBits(code, ZERO, text, ZERO, this.dimension);
+	}
 
-			blockCount += this.length;
-			index += this.dimension;
+	/**
+	 * This method encodes the given bit set with the generator matrix, which is precomputed.
+	 *
+	 * @param plaintext the plain text that should be encoded
+	 * @param len the length of the plain text
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
+	 * @return encoded bit set
+	 */
+	@Override
+	public BitSet encode(BitSet plaintext, int len, Executor executor) {
+		if (this.invalid) {
+			System.out.println("Cannot encode with this instance!");
+			return plaintext;
 		}
-
-		return decoded;
+		return super.encode(plaintext, len, executor);
 	}
 
 	/**
@@ -260,11 +271,16 @@ public class ReedMullerCode implements IECC {
      *
      * @param codetext the binary input
      * @param len the length of the codetext
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
      * @return the decoded version of plaintext (padded to a whole number of blocks)
 	 */
 	@Override
-	public BitSet decodeAlways(BitSet codetext, int len) {
-		return decode(codetext, len, false); //decode the given code
+	public BitSet decodeAlways(BitSet codetext, int len, Executor executor) {
+		if (this.invalid) {
+			System.out.println("Cannot decode with this instance!");
+			return codetext;
+		}
+		return super.decodeAlways(codetext, len, executor); //decode the given code
 	}
 
 	/**
@@ -274,23 +290,18 @@ public class ReedMullerCode implements IECC {
      *
      * @param codetext the binary input
      * @param len the length of the codetext
+	 * @param executor the executor for the parallel mode, or null to use the common ForkJoinPool
      * @return the decoded version of plaintext (padded to a whole number of blocks)
      * @throws UncorrectableErrorException if there is no uniquely best decoding
      */
 	@Override
-	public BitSet decodeIfUnique(BitSet codetext, int len) throws UncorrectableErrorException {
+	public BitSet decodeIfUnique(BitSet codetext, int len, Executor executor) throws UncorrectableErrorException {
 		if (this.invalid) {
 			System.out.println("Cannot decode with this instance!");
 			return codetext;
 		}
 
-		BitSet decoded = decode(codetext, len, true); //decode the given code
-
-		if (decoded != null) {
-			return decoded;
-		} else {
-			throw new UncorrectableErrorException();
-		}
+		return super.decodeIfUnique(codetext, len, executor); //decode the given code
 	}
 
 	/**
@@ -0,0 +1,302 @@
+/**
+ * The table-free decoder for the Reed Muller code RM(k, r).
+ *
+ * The first order codes RM(k, 1) are decoded with the Fast Hadamard Transform, which finds a closest codeword.
+ * The other codes are decoded with Reed's majority-logic algorithm, which recovers the coefficients of the
+ * monomials from the highest degree to the lowest degree.
+ * Neither method needs a syndrome table, so the memory use does not depend on the minimum distance of the code.
+ * Like the syndrome table, which has no leader of more than (2^(k-r) - 1) / 2 errors, the decoder reports a block
+ * as uncorrectable if its estimated error vector is heavier than that, as the votes of such a block can agree
+ * on a wrong codeword.
+ *
+ * The decoder works on the natural order of the evaluation points, so the columns that were swapped
+ * when the generator matrix was converted to the standard form are swapped back before decoding.
+ * The working arrays are kept per thread and reused across the blocks, so decoding a block does not allocate.
+ *
+ * @author 160021429
+ */
+final class ReedMullerDecoder {
+	private final int ZERO = 0;
+	private final int ONE = 1;
+	private final int k;
+	private final int r;
+	private final int length;
+	private final int dimension;
+	private final int correctable; // the number of errors t = (2^(k-r) - 1) / 2 that the code corrects
+	private final int words; // the number of 64-bit words in a code block
+	private final int[] columns; // columns[j] is the evaluation point of the column j of the generator matrix
+	private final long[][] variables; // variables[v] selects every evaluation point x where the bit v of x is set
+	private final long[] all; // selects every evaluation point
+	private final int[][] monomials; // monomials[d] contains the monomials of degree d, as bit masks of variables
+	private final int maxMonomials; // the largest number of monomials of a single degree
+	private final ThreadLocal<Workspace> workspace; // the working arrays of each thread
+
+	/**
+	 * The constructor precomputes the evaluation vectors of the variables and the lists of monomials.
+	 * @param k the value k for RM(k, r)
+	 * @param r the value r for RM(k, r)
+	 * @param dimension the dimension of the code
+	 * @param columns the evaluation point of each column of the generator matrix
+	 */
+	ReedMullerDecoder(int k, int r, int dimension, int[] columns) {
+		this.k = k;
+		this.r = r;
+		this.length = ONE << k;
+		this.dimension = dimension;
+		this.correctable = ((this.length >>> r) - ONE) >>> ONE;
+		this.columns = columns;
+		this.words = BitUtil.numOfWords(this.length);
+
+		this.all = new long[this.words];
+		for (int x = ZERO; x < this.length; x++) {
+			this.all[x >>> 6] |= 1L << x;
+		}
+
+		this.variables = new long[k][this.words];
+		for (int v = ZERO; v < k; v++) {
+			for (int x = ZERO; x < this.length; x++) {
+				if ((x >>> v & ONE) != ZERO) {
+					this.variables[v][x >>> 6] |= 1L << x;
+				}
+			}
+		}
+
+		this.monomials = new int[r + ONE][];
+		int[] counts = new int[r + ONE];
+		for (int m = ZERO; m < (ONE << k); m++) {
+			int degree = Integer.bitCount(m);
+			if (degree <= r) {
+				counts[degree]++;
+			}
+		}
+		for (int d = ZERO; d <= r; d++) {
+			this.monomials[d] = new int[counts[d]];
+			counts[d] = ZERO;
+		}
+		for (int m = ZERO; m < (ONE << k); m++) {
+			int degree = Integer.bitCount(m);
+			if (degree <= r) {
+				this.monomials[degree][counts[degree]++] = m;
+			}
+		}
+
+		int max = ZERO;
+		for (int d = ZERO; d <= r; d++) {
+			max = Math.max(max, this.monomials[d].length);
+		}
+		this.maxMonomials = max;
+
+		this.workspace = ThreadLocal.withInitial(Workspace::new);
+	}
+
+	/**
+	 * The working arrays of the decoder, which are reused by the blocks that a thread decodes.
+	 */
+	private final class Workspace {
+		private final long[] received = new long[words];
+		private final long[] codeword = new long[words];
+		private final long[] residual = new long[words];
+		private final long[] fold = new long[words];
+		private final long[] mask = new long[words];
+		private final boolean[] coefficients = new boolean[maxMonomials];
+		private final int[] f = new int[(r == ONE) ? length : ZERO]; // the transform is only used for RM(k, 1)
+	}
+
+	/**
+	 * Decodes a single block.
+	 * @param block the received block, in the column order of the generator matrix
+	 * @param message the array that receives the plain text bits of the decoded block
+	 * @return CLEAN, CORRECTED, or UNCORRECTABLE if a tie had to be broken or more than t errors were corrected
+	 */
+	int decode(long[] block, long[] message) {
+		Workspace w = this.workspace.get();
+		long[] received = w.received;
+
+		for (int i = ZERO; i < this.words; i++) {
+			received[i] = 0L;
+		}
+
+		for (int j = ZERO; j < this.length; j++) {
+			if ((block[j >>> 6] >>> j & 1L) != 0L) {
+				int x = this.columns[j];
+				received[x >>> 6] |= 1L << x;
+			}
+		}
+
+		long[] codeword = w.codeword;
+		boolean unique = (this.r == ONE) ? transform(received, codeword, w.f) : majority(received, codeword, w);
+
+		for (int i = ZERO; i < BitUtil.numOfWords(this.dimension); i++) {
+			message[i] = 0L;
+		}
+
+		int errors = ZERO; // the weight of the estimated error vector
+
+		for (int i = ZERO; i < this.words; i++) {
+			errors += Long.bitCount(codeword[i] ^ received[i]);
+		}
+
+		for (int j = ZERO; j < this.dimension; j++) {
+			int x = this.columns[j];
+			message[j >>> 6] |= (codeword[x >>> 6] >>> x & 1L) << j;
+		}
+
+		if (!unique || errors > this.correctable) {
+			return AbstractBlockCode.UNCORRECTABLE;
+		}
+		return (errors != ZERO) ? AbstractBlockCode.CORRECTED : AbstractBlockCode.CLEAN;
+	}
+
+	/**
+	 * Finds a closest codeword of RM(k, 1) with the Fast Hadamard Transform.
+	 * The codeword that is given by the largest absolute coefficient of the transform is a closest codeword.
+	 * @param received the received word, in the natural order
+	 * @param codeword the array that receives the closest codeword, in the natural order
+	 * @param f the array that receives the transform
+	 * @return true if the closest codeword is unique
+	 */
+	private boolean transform(long[] received, long[] codeword, int[] f) {
+		for (int x = ZERO; x < this.length; x++) {
+			f[x] = ONE - (int) ((received[x >>> 6] >>> x & 1L) << ONE); // (-1)^y(x)
+		}
+
+		for (int half = ONE; half < this.length; half <<= ONE) {
+			for (int i = ZERO; i < this.length; i += half << ONE) {
+				for (int j = i; j < i + half; j++) {
+					int a = f[j];
+					int b = f[j + half];
+					f[j] = a + b;
+					f[j + half] = a - b;
+				}
+			}
+		}
+
+		int best = ZERO;
+		boolean unique = true;
+
+		for (int u = ONE; u < this.length; u++) {
+			int diff = Math.abs(f[u]) - Math.abs(f[best]);
+			if (diff > ZERO) {
+				best = u;
+				unique = true;
+			} else if (diff == ZERO) {
+				unique = false;
+			}
+		}
+
+		for (int i = ZERO; i < this.words; i++) {
+			codeword[i] = (f[best] < ZERO) ? this.all[i] : 0L;
+		}
+
+		for (int v = ZERO; v < this.k; v++) {
+			if ((best >>> v & ONE) != ZERO) {
+				for (int i = ZERO; i < this.words; i++) {
+					codeword[i] ^= this.variables[v][i];
+				}
+			}
+		}
+
+		return unique;
+	}
+
+	/**
+	 * Decodes with Reed's majority-logic algorithm.
+	 * The coefficient of a monomial of degree d is the majority of 2^(k-d) votes, where each vote is the
+	 * sum of the received bits over a sub-cube spanned by the variables of the monomial.
+	 * Once all coefficients of a degree are known, their monomials are subtracted from the received word.
+	 * @param received the received word, in the natural order
+	 * @param codeword the array that receives the decoded codeword, in the natural order
+	 * @param w the working arrays
+	 * @return true if no vote was tied
+	 */
+	private boolean majority(long[] received, long[] codeword, Workspace w) {
+		long[] residual = w.residual;
+		long[] fold = w.fold;
+		long[] mask = w.mask;
+		boolean[] coefficients = w.coefficients;
+
+		System.arraycopy(received, ZERO, residual, ZERO, this.words);
+		boolean unique = true;
+
+		for (int d = this.r; d >= ZERO; d--) {
+			int[] degree = this.monomials[d];
+			int votes = this.length >>> d;
+
+			for (int m = ZERO; m < degree.length; m++) {
+				System.arraycopy(residual, ZERO, fold, ZERO, this.words);
+				System.arraycopy(this.all, ZERO, mask, ZERO, this.words);
+
+				for (int v = ZERO; v < this.k; v++) {
+					if ((degree[m] >>> v & ONE) != ZERO) {
+						fold(fold, v);
+						for (int i = ZERO; i < this.words; i++) {
+							mask[i] &= ~this.variables[v][i]; // the votes are at the points where the variables are zero
+						}
+					}
+				}
+
+				int ones = ZERO;
+				for (int i = ZERO; i < this.words; i++) {
+					ones += Long.bitCount(fold[i] & mask[i]);
+				}
+
+				if ((ones << ONE) == votes) {
+					unique = false;
+				}
+				coefficients[m] = (ones << ONE) > votes;
+			}
+
+			for (int m = ZERO; m < degree.length; m++) {
+				if (coefficients[m]) {
+					subtract(residual, degree[m]);
+				}
+			}
+		}
+
+		for (int i = ZERO; i < this.words; i++) {
+			codeword[i] = received[i] ^ residual[i]; // the residual is the estimated error vector
+		}
+
+		return unique;
+	}
+
+	/**
+	 * Adds the value at x + 2^v to the value at x, for every point x where the bit v of x is zero.
+	 * The values at the other points are left undefined.
+	 * @param fold the packed values
+	 * @param v the variable to fold along
+	 */
+	private void fold(long[] fold, int v) {
+		if (v < 6) {
+			int shift = ONE << v;
+			for (int i = ZERO; i < this.words; i++) {
+				fold[i] ^= fold[i] >>> shift;
+			}
+		} else {
+			int step = ONE << (v - 6);
+			for (int i = ZERO; i < this.words; i++) {
+				if ((i & step) == ZERO) {
+					fold[i] ^= fold[i + step];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Subtracts the evaluation vector of a monomial from the residual.
+	 * @param residual the packed residual
+	 * @param monomial the monomial, as a bit mask of variables
+	 */
+	private void subtract(long[] residual, int monomial) {
+		for (int i = ZERO; i < this.words; i++) {
+			long eval = this.all[i];
+
+			for (int v = ZERO; v < this.k; v++) {
+				if ((monomial >>> v & ONE) != ZERO) {
+					eval &= this.variables[v][i];
+				}
+			}
+			residual[i] ^= eval;
+		}
+	}
+}
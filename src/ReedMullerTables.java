@@ -0,0 +1,104 @@
+/**
+ * The precomputed tables of a Reed Muller code RM(k, r): the generator matrix, the parity check matrix,
+ * the evaluation point of each column, and the syndrome table of the short codes.
+ *
+ * The tables are what the ReedMullerCode constructor spends its time on, so they are built once
+ * and can be written to a snapshot file (CodeSnapshot) and loaded again by the next JVM.
+ *
+ * @author 160021429
+ */
+final class ReedMullerTables {
+	final int k;
+	final int r;
+	final int length;
+	final int dimension;
+	final long[] generator; // rows of the generator matrix in the standard form, packed into words rows of 64-bit words
+	final long[] parityChecks; // rows of the parity check matrix H, packed into words rows of 64-bit words
+	final int[] columns; // columns[j] is the evaluation point of the column j of the generator matrix
+	final SyndromeTable syndrome; // the syndrome table, or null if the majority-logic decoder is used
+
+	/**
+	 * The constructor that wraps tables that were built or loaded.
+	 * @param k the value k for RM(k, r)
+	 * @param r the value r for RM(k, r)
+	 * @param generator the packed generator matrix
+	 * @param parityChecks the packed parity check matrix
+	 * @param columns the evaluation point of each column of the generator matrix
+	 * @param syndrome the syndrome table, or null
+	 */
+	ReedMullerTables(int k, int r, long[] generator, long[] parityChecks, int[] columns, SyndromeTable syndrome) {
+		this.k = k;
+		this.r = r;
+		this.length = 1 << k;
+		this.dimension = calculateDimension(k, r);
+		this.generator = generator;
+		this.parityChecks = parityChecks;
+		this.columns = columns;
+		this.syndrome = syndrome;
+	}
+
+	/**
+	 * Builds the tables of a code.
+	 * The syndrome table is indexed by the syndrome, so it is only built for codes of length 64 or less
+	 * that have at most SyndromeTable.MAX_SYNDROME_BITS parity check bits.
+	 * @param k the value k for RM(k, r), where 0 <= r <= k
+	 * @param r the value r for RM(k, r)
+	 * @param majorityLogic true to leave out the syndrome table, so that the majority-logic decoder is used
+	 * @return the tables
+	 */
+	static ReedMullerTables build(int k, int r, boolean majorityLogic) {
+		int length = 1 << k;
+		int distance = 1 << (k - r);
+		int dimension = calculateDimension(k, r);
+		int[] columns = new int[length];
+
+		BitMatrix g = MatrixOperation.generateG(k, r, dimension, length, columns); // generate the generator matrix
+		BitMatrix h = MatrixOperation.generateH(g); // generate the parity check matrix
+		int parityMatrixLength = length - dimension;
+		SyndromeTable syndrome = null;
+
+		if (!majorityLogic && length <= BitUtil.WORD_SIZE && parityMatrixLength <= SyndromeTable.MAX_SYNDROME_BITS) {
+			long[] columnsOfH = h.transpose().getData();
+			int[] rows = new int[length]; // rows[j] is the syndrome of a single error at the position j
+
+			for (int j = 0; j < length; j++) {
+				rows[j] = (parityMatrixLength == 0) ? 0 : (int) columnsOfH[j];
+			}
+
+			// generate the syndrome table
+			syndrome = MatrixOperation.getSyndrome(length, distance, rows, parityMatrixLength);
+		}
+
+		return new ReedMullerTables(k, r, g.getData(), h.getData(), columns, syndrome);
+	}
+
+	/**
+	 * This method calculates the dimension of the reed muller code RM(k, r), which is the sum of k_C_i for i up to r.
+	 *
+	 * @param k the number k of the reed muller code RM(k, r)
+	 * @param r the number r of the reed muller code RM(k, r)
+	 * @return the dimension of the reed muller code
+	 */
+	static int calculateDimension(int k, int r) {
+		int sum = 1;
+
+		for (int i = 1; i <= r; i++) {
+			if (i != 1) {
+				int limit = k - i;
+				int temp = k;
+
+				for (int j = k - 1; j > limit; j--) {
+					temp *= j;
+				}
+
+				for (int j = 2; j <= i; j++) {
+					temp /= j;
+				}
+				sum += temp;
+			} else {
+				sum += k;
+			}
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * A cursor over the combinations of k numbers out of 0 to (size - 1), in the revolving-door order
+ * (Algorithm R of Knuth, The Art of Computer Programming, 7.2.1.3).
+ *
+ * Every step removes exactly one number from the combination and adds exactly one other number,
+ * so a value that is a sum over the numbers of the combination (like the syndrome of an error vector,
+ * which is the XOR of the columns of H at the error positions) is updated with two operations per step.
+ *
+ * @author 160021429
+ */
+final class RevolvingDoor {
+	private final int k;
+	private final int[] c; // c[1..k] is the current combination in increasing order, and c[k + 1] is the size
+	private int removed = -1;
+	private int added = -1;
+	private boolean started;
+	private boolean done;
+
+	/**
+	 * The constructor of the cursor, which is placed before the first combination.
+	 * @param size the number of numbers to choose from (0 to size - 1)
+	 * @param k the number of numbers in each combination
+	 */
+	RevolvingDoor(int size, int k) {
+		this.k = Math.max(k, 0);
+		this.c = new int[this.k + 2];
+		this.c[this.k + 1] = size;
+		this.done = (k < 0 || k > size);
+	}
+
+	/**
+	 * Moves to the next combination, which differs from the current one in a single removed and a single added number.
+	 * @return true if there is a next combination, or false if all combinations have been visited
+	 */
+	boolean next() {
+		if (this.done) {
+			return false;
+		}
+
+		if (!this.started) {
+			this.started = true;
+
+			for (int j = 1; j <= this.k; j++) {
+				this.c[j] = j - 1;
+			}
+			return true;
+		}
+
+		if (this.k == 0) {
+			this.done = true;
+			return false;
+		}
+
+		int j;
+
+		// the easy cases only move the smallest number
+		if ((this.k & 1) != 0) {
+			if (this.c[1] + 1 < this.c[2]) {
+				return move(1, this.c[1] + 1);
+			}
+			j = 2;
+		} else {
+			if (this.c[1] > 0) {
+				return move(1, this.c[1] - 1);
+			}
+			j = 2;
+
+			if (tryIncrease(j)) {
+				return true;
+			}
+			j++;
+		}
+
+		for (; j <= this.k; j++) {
+			// try to decrease c[j], where c[j] = c[j - 1] + 1
+			if (this.c[j] >= j) {
+				this.removed = this.c[j];
+				this.added = j - 2;
+				this.c[j] = this.c[j - 1];
+				this.c[j - 1] = j - 2;
+				return true;
+			}
+
+			j++;
+			if (j > this.k) {
+				break;
+			}
+
+			// try to increase c[j], where c[j - 1] = j - 2
+			if (tryIncrease(j)) {
+				return true;
+			}
+		}
+
+		this.done = true;
+		return false;
+	}
+
+	/**
+	 * Replaces the number c[j] with another number.
+	 * @param j the index of the number (1 to k)
+	 * @param value the new number
+	 * @return true
+	 */
+	private boolean move(int j, int value) {
+		this.removed = this.c[j];
+		this.added = value;
+		this.c[j] = value;
+		return true;
+	}
+
+	/**
+	 * Tries to increase c[j], where c[j - 1] = j - 2, which replaces the number j - 2 with c[j] + 1.
+	 * @param j the index of the number (2 to k)
+	 * @return true if c[j] could be increased
+	 */
+	private boolean tryIncrease(int j) {
+		if (this.c[j] + 1 < this.c[j + 1]) {
+			this.removed = j - 2;
+			this.added = this.c[j] + 1;
+			this.c[j - 1] = this.c[j];
+			this.c[j] = this.c[j] + 1;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a number of the current combination.
+	 * @param index the index of the number in the combination (0 to k - 1)
+	 * @return the number, where the numbers increase with the index
+	 */
+	int get(int index) {
+		return this.c[index + 1];
+	}
+
+	/**
+	 * Returns the number of numbers in each combination.
+	 * @return k
+	 */
+	int size() {
+		return this.k;
+	}
+
+	/**
+	 * Returns the number that the last step removed from the combination.
+	 * @return the removed number, or -1 before the second combination
+	 */
+	int removed() {
+		return this.removed;
+	}
+
+	/**
+	 * Returns the number that the last step added to the combination.
+	 * @return the added number, or -1 before the second combination
+	 */
+	int added() {
+		return this.added;
+	}
+}
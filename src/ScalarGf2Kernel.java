@@ -0,0 +1,46 @@
+/**
+ * The scalar kernel of the products over GF(2), which processes one 64-bit word at a time.
+ *
+ * @author 160021429
+ */
+final class ScalarGf2Kernel implements Gf2Kernel {
+
+	@Override
+	public void combineRows(long[] vector, long[] matrix, int rows, int words, long[] result) {
+		for (int x = 0; x < words; x++) {
+			result[x] = 0L;
+		}
+
+		for (int w = 0; w < BitUtil.numOfWords(rows); w++) {
+			for (long bits = vector[w]; bits != 0L; bits &= bits - 1) {
+				int offset = ((w << 6) + Long.numberOfTrailingZeros(bits)) * words;
+
+				for (int x = 0; x < words; x++) {
+					result[x] ^= matrix[offset + x];
+				}
+			}
+		}
+	}
+
+	@Override
+	public long rowParities(long[] vector, long[] matrix, int row, int count, int words) {
+		long parities = 0L;
+
+		for (int t = 0; t < count; t++) {
+			int offset = (row + t) * words;
+			long sum = 0L;
+
+			for (int x = 0; x < words; x++) {
+				sum ^= vector[x] & matrix[offset + x];
+			}
+			parities |= (long) (Long.bitCount(sum) & 1) << t;
+		}
+
+		return parities;
+	}
+
+	@Override
+	public String toString() {
+		return "scalar";
+	}
+}
@@ -0,0 +1,140 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The syndrome table of a binary linear code of length 64 or less, stored in flat primitive arrays.
+ *
+ * The syndromes are dense integers in [0, 2^(n-k)), so the table is indexed directly by the syndrome.
+ * Each entry holds the coset leader (the error vector of the lowest weight that has the syndrome) in a single word,
+ * and a bitmap records which syndromes have more than one candidate error vector.
+ * A syndrome has a leader if its entry is nonzero, as every error vector is nonzero; the zero syndrome always has one.
+ *
+ * The entries are set with compare-and-set, so the error vectors of a weight can be added by several threads at once.
+ * Of the error vectors of the lowest weight that share a syndrome, the leader is the smallest in the unsigned order,
+ * whatever order the threads add them in, so a table (and its snapshot) is the same on every run.
+ *
+ * @author 160021429
+ */
+final class SyndromeTable {
+	/**
+	 * The largest number of syndrome bits that a table is built for (2^20 entries).
+	 */
+	static final int MAX_SYNDROME_BITS = 20;
+
+	private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private final long[] leaders; // the coset leaders, or zero if the syndrome does not have one
+	private final long[] ambiguous; // the bit s is set if more than one error vector has the syndrome s
+
+	/**
+	 * The constructor makes an empty table, where only the zero syndrome has the (zero) coset leader.
+	 * @param syndromeBits the number of bits in a syndrome (n - k)
+	 * @param length the length of the code
+	 */
+	SyndromeTable(int syndromeBits, int length) {
+		if (syndromeBits > MAX_SYNDROME_BITS || length > BitUtil.WORD_SIZE) {
+			throw new IllegalArgumentException("The syndrome table supports up to " + MAX_SYNDROME_BITS
+					+ " syndrome bits and a length of up to " + BitUtil.WORD_SIZE);
+		}
+
+		int size = 1 << syndromeBits;
+
+		this.leaders = new long[size];
+		this.ambiguous = new long[BitUtil.numOfWords(size)];
+	}
+
+	/**
+	 * The constructor that wraps the arrays of a table that was loaded from a snapshot.
+	 * @param leaders the coset leaders, one word per syndrome
+	 * @param ambiguous the bitmap of the ambiguous syndromes
+	 */
+	SyndromeTable(long[] leaders, long[] ambiguous) {
+		this.leaders = leaders;
+		this.ambiguous = ambiguous;
+	}
+
+	/**
+	 * Adds an error vector to the table, which is safe to call from several threads at once.
+	 * The error vectors should be added in the order of increasing weight, so that the first weight
+	 * of a syndrome is the weight of its coset leader. Another error vector of the same syndrome and the same weight
+	 * makes it ambiguous, and replaces the leader if it is smaller in the unsigned order,
+	 * and a heavier one is ignored, as the syndrome already has a closer leader.
+	 * @param syndrome the syndrome of the error vector
+	 * @param error the packed error vector, which must not be zero
+	 */
+	void add(int syndrome, long error) {
+		if (syndrome != 0 && LONGS.compareAndSet(this.leaders, syndrome, 0L, error)) {
+			return;
+		}
+
+		long leader = (long) LONGS.getVolatile(this.leaders, syndrome);
+
+		if (Long.bitCount(leader) != Long.bitCount(error)) {
+			return;
+		}
+		LONGS.getAndBitwiseOr(this.ambiguous, syndrome >>> 6, 1L << syndrome);
+
+		// the smaller vector wins, so the leader does not depend on which thread came first
+		while (Long.compareUnsigned(error, leader) < 0 && !LONGS.compareAndSet(this.leaders, syndrome, leader, error)) {
+			leader = (long) LONGS.getVolatile(this.leaders, syndrome);
+		}
+	}
+
+	/**
+	 * Counts the syndromes that have a coset leader.
+	 * @return the number of syndromes, including the zero syndrome
+	 */
+	int countKnown() {
+		int count = 1;
+
+		for (int s = 1; s < this.leaders.length; s++) {
+			if (this.leaders[s] != 0L) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if the syndrome has a coset leader.
+	 * @param syndrome the syndrome
+	 * @return true if the syndrome has a coset leader
+	 */
+	boolean isKnown(int syndrome) {
+		return syndrome == 0 || this.leaders[syndrome] != 0L;
+	}
+
+	/**
+	 * Checks if more than one error vector has the syndrome.
+	 * @param syndrome the syndrome
+	 * @return true if the coset leader is not unique
+	 */
+	boolean isAmbiguous(int syndrome) {
+		return (this.ambiguous[syndrome >>> 6] >>> syndrome & 1L) != 0L;
+	}
+
+	/**
+	 * The getter of the coset leaders, which are written to the snapshot files.
+	 * @return the coset leaders, one word per syndrome
+	 */
+	long[] getLeaders() {
+		return this.leaders;
+	}
+
+	/**
+	 * The getter of the bitmap of the ambiguous syndromes, which is written to the snapshot files.
+	 * @return the bitmap
+	 */
+	long[] getAmbiguous() {
+		return this.ambiguous;
+	}
+
+	/**
+	 * Returns the coset leader of a code that fits in one word.
+	 * @param syndrome the syndrome
+	 * @return the coset leader, or zero if the syndrome does not have one
+	 */
+	long leader(int syndrome) {
+		return this.leaders[syndrome];
+	}
+}
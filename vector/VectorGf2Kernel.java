@@ -0,0 +1,85 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The kernel of the products over GF(2) with the Java Vector API, which processes a whole vector of words at a time
+ * (4 words with AVX2, 8 words with AVX-512). The rows are added with lane-wise XOR, and the parity of a row and a vector
+ * is the lane-wise AND, accumulated with XOR, reduced across the lanes, and folded with a popcount.
+ *
+ * This class needs the incubator module, so it is kept out of src and compiled separately:
+ *
+ *   javac --add-modules jdk.incubator.vector -d out src/*.java vector/*.java
+ *   java --add-modules jdk.incubator.vector -cp out ...
+ *
+ * Gf2Kernel loads it reflectively, and falls back to the scalar kernel if it is missing.
+ *
+ * @author 160021429
+ */
+final class VectorGf2Kernel implements Gf2Kernel {
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+	/**
+	 * The constructor, which rejects the hardware without vector lanes, where the scalar kernel is faster.
+	 */
+	VectorGf2Kernel() {
+		if (SPECIES.length() < 2) {
+			throw new UnsupportedOperationException("The preferred vector species has a single lane");
+		}
+	}
+
+	@Override
+	public void combineRows(long[] vector, long[] matrix, int rows, int words, long[] result) {
+		int bound = SPECIES.loopBound(words);
+
+		for (int x = 0; x < words; x++) {
+			result[x] = 0L;
+		}
+
+		for (int w = 0; w < BitUtil.numOfWords(rows); w++) {
+			for (long bits = vector[w]; bits != 0L; bits &= bits - 1) {
+				int offset = ((w << 6) + Long.numberOfTrailingZeros(bits)) * words;
+				int x = 0;
+
+				for (; x < bound; x += SPECIES.length()) {
+					LongVector.fromArray(SPECIES, result, x)
+							.lanewise(VectorOperators.XOR, LongVector.fromArray(SPECIES, matrix, offset + x))
+							.intoArray(result, x);
+				}
+				for (; x < words; x++) {
+					result[x] ^= matrix[offset + x];
+				}
+			}
+		}
+	}
+
+	@Override
+	public long rowParities(long[] vector, long[] matrix, int row, int count, int words) {
+		int bound = SPECIES.loopBound(words);
+		long parities = 0L;
+
+		for (int t = 0; t < count; t++) {
+			int offset = (row + t) * words;
+			LongVector sums = LongVector.zero(SPECIES);
+			int x = 0;
+
+			for (; x < bound; x += SPECIES.length()) {
+				sums = sums.lanewise(VectorOperators.XOR, LongVector.fromArray(SPECIES, vector, x)
+						.lanewise(VectorOperators.AND, LongVector.fromArray(SPECIES, matrix, offset + x)));
+			}
+
+			long sum = sums.reduceLanes(VectorOperators.XOR);
+			for (; x < words; x++) {
+				sum ^= vector[x] & matrix[offset + x];
+			}
+			parities |= (long) (Long.bitCount(sum) & 1) << t;
+		}
+
+		return parities;
+	}
+
+	@Override
+	public String toString() {
+		return "vector(" + SPECIES + ")";
+	}
+}